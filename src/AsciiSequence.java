@@ -0,0 +1,61 @@
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reusable CharSequence view over a range of a byte array holding ASCII text.
+ * Parsers read FEN strings and PGN tokens straight out of file buffers through
+ * it instead of decoding a String for every piece of text; a String is only
+ * made when toString is called.
+ */
+public final class AsciiSequence implements CharSequence {
+
+    private byte[] bytes;
+    private int offset;
+    private int length;
+
+    public AsciiSequence() {
+        this(new byte[0], 0, 0);
+    }
+
+    public AsciiSequence(byte[] bytes, int offset, int length) {
+        set(bytes, offset, length);
+    }
+
+    /**
+     * Points the view at another range of bytes
+     */
+    public AsciiSequence set(byte[] bytes, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new IllegalArgumentException("Range " + offset + "+" + length + " outside of " + bytes.length + " bytes");
+        }
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " outside of length " + length);
+        }
+        return (char) (bytes[offset + index] & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("Range " + start + "-" + end + " outside of length " + length);
+        }
+        return new AsciiSequence(bytes, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+    }
+}
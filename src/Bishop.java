@@ -2,25 +2,25 @@ public class Bishop extends Board {
     private static final char SYMBOL = 'B';
     int row = 0, column;
 
-    Bishop(String color, int column) {
-        this.row = color.equalsIgnoreCase("white") ? 0 : 7;
+    Bishop(Side color, int column) {
+        this.row = color == Side.WHITE ? 0 : 7;
         addPiece(column, color, this.row);
     }
 
     @Override
-    void addPiece(int pos, String color, int row) {
+    void addPiece(int pos, Side color, int row) {
         board[row][pos] = new Index(pos, color, SYMBOL);
         this.column = pos;
         this.row = row;
-        recordMove(color, new Move(Move.Type.ADD, pos, row, SYMBOL));
+        recordMove(color, Move.encode(Move.Type.ADD, pos, row, SYMBOL));
     }
 
     @Override
-    void movePiece(int pos, String color, int row) {
+    void movePiece(int pos, Side color, int row) {
         if (pos < 0 || pos >= 8 || row < 0 || row >= 8) {
             throw new IllegalArgumentException("Position out of bounds for bishop move");
         }
-        if (board[row][pos] != null && board[row][pos].colour.equals(color)) {
+        if (board[row][pos] != null && board[row][pos].colour == color) {
             throw new IllegalArgumentException("Cannot capture your own piece");
         }
         int colDiff = Math.abs(this.column - pos);
@@ -45,14 +45,14 @@ public class Bishop extends Board {
         board[row][pos] = new Index(pos, color, SYMBOL);
         this.row = row;
         this.column = pos;
-        recordMove(color, new Move(Move.Type.MOVE, pos, row, SYMBOL));
+        recordMove(color, Move.encode(Move.Type.MOVE, pos, row, SYMBOL));
     }
 
     @Override
-    void removePiece(int pos, String color, int row) {
+    void removePiece(int pos, Side color, int row) {
         if (board[row][pos] != null) {
             board[row][pos] = null;
-            recordMove(color, new Move(Move.Type.REMOVE, pos, row, SYMBOL));
+            recordMove(color, Move.encode(Move.Type.REMOVE, pos, row, SYMBOL));
         }
     }
 }
@@ -0,0 +1,131 @@
+/**
+ * Bitboard representation of a chess position.
+ * Keeps one 64-bit occupancy mask per piece type and color, so attack and
+ * occupancy queries are answered with a few mask operations and Attacks
+ * table lookups instead of scanning the whole board.
+ *
+ * Squares are indexed as row * 8 + col, so bit 0 is a1 and bit 63 is h8.
+ */
+public class BitboardPosition {
+
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    private static final int KING = Piece.Type.KING.ordinal();
+    private static final int QUEEN = Piece.Type.QUEEN.ordinal();
+    private static final int ROOK = Piece.Type.ROOK.ordinal();
+    private static final int BISHOP = Piece.Type.BISHOP.ordinal();
+    private static final int KNIGHT = Piece.Type.KNIGHT.ordinal();
+    private static final int PAWN = Piece.Type.PAWN.ordinal();
+
+    // Indexed by [color][Piece.Type ordinal]
+    private final long[][] pieces = new long[2][Piece.Type.values().length];
+    private final long[] colorOccupancy = new long[2];
+    private long occupied;
+
+    public void addPiece(int color, Piece.Type type, int square) {
+        long bit = 1L << square;
+        pieces[color][type.ordinal()] |= bit;
+        colorOccupancy[color] |= bit;
+        occupied |= bit;
+    }
+
+    public void removePiece(int color, Piece.Type type, int square) {
+        long mask = ~(1L << square);
+        pieces[color][type.ordinal()] &= mask;
+        colorOccupancy[color] &= mask;
+        occupied &= mask;
+    }
+
+    public long getPieces(int color, Piece.Type type) {
+        return pieces[color][type.ordinal()];
+    }
+
+    public long getOccupancy(int color) {
+        return colorOccupancy[color];
+    }
+
+    public long getOccupied() {
+        return occupied;
+    }
+
+    /**
+     * Returns the square of the king of the given color, or -1 if there is none
+     */
+    public int kingSquare(int color) {
+        long king = pieces[color][KING];
+        return king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+    }
+
+    /**
+     * Checks if a square is attacked by any piece of the given color
+     */
+    public boolean isSquareAttacked(int square, int byColor) {
+        return isSquareAttacked(square, byColor, occupied);
+    }
+
+    /**
+     * Checks if a square is attacked by any piece of the given color, with sliding
+     * attacks computed against the given occupancy (used to look through a king
+     * that is about to step away along the line of a checking slider)
+     */
+    public boolean isSquareAttacked(int square, int byColor, long occupied) {
+        long[] attacker = pieces[byColor];
+        if ((Attacks.knightAttacks(square) & attacker[KNIGHT]) != 0) return true;
+        if ((Attacks.kingAttacks(square) & attacker[KING]) != 0) return true;
+        // A pawn of byColor attacks this square if a pawn of the other color standing here would attack it
+        if ((Attacks.pawnAttacks(byColor ^ 1, square) & attacker[PAWN]) != 0) return true;
+
+        long diagonal = attacker[BISHOP] | attacker[QUEEN];
+        if (diagonal != 0 && (Attacks.bishopAttacks(square, occupied) & diagonal) != 0) return true;
+        long straight = attacker[ROOK] | attacker[QUEEN];
+        return straight != 0 && (Attacks.rookAttacks(square, occupied) & straight) != 0;
+    }
+
+    /**
+     * Returns the pieces of the other color giving check to the king of the given color
+     */
+    public long checkers(int color) {
+        int king = kingSquare(color);
+        if (king < 0) return 0;
+        return attackersTo(king, occupied) & colorOccupancy[color ^ 1];
+    }
+
+    /**
+     * Returns the pieces of the given color that are pinned to their own king:
+     * the only piece standing between the king and an enemy slider aiming at it
+     */
+    public long pinnedPieces(int color) {
+        int king = kingSquare(color);
+        if (king < 0) return 0;
+        long[] enemy = pieces[color ^ 1];
+        long snipers = (Attacks.rookAttacks(king, 0) & (enemy[ROOK] | enemy[QUEEN]))
+                     | (Attacks.bishopAttacks(king, 0) & (enemy[BISHOP] | enemy[QUEEN]));
+        long pinned = 0;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Attacks.between(king, sniper) & occupied;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0) {
+                pinned |= blockers & colorOccupancy[color];
+            }
+        }
+        return pinned;
+    }
+
+    /**
+     * Returns all pieces of either color that attack the square, with sliding
+     * attacks computed against the given occupancy (which may have pieces removed
+     * to reveal x-ray attackers)
+     */
+    public long attackersTo(int square, long occupied) {
+        long diagonal = pieces[WHITE][BISHOP] | pieces[WHITE][QUEEN] | pieces[BLACK][BISHOP] | pieces[BLACK][QUEEN];
+        long straight = pieces[WHITE][ROOK] | pieces[WHITE][QUEEN] | pieces[BLACK][ROOK] | pieces[BLACK][QUEEN];
+        return (Attacks.knightAttacks(square) & (pieces[WHITE][KNIGHT] | pieces[BLACK][KNIGHT]))
+             | (Attacks.kingAttacks(square) & (pieces[WHITE][KING] | pieces[BLACK][KING]))
+             | (Attacks.pawnAttacks(BLACK, square) & pieces[WHITE][PAWN])
+             | (Attacks.pawnAttacks(WHITE, square) & pieces[BLACK][PAWN])
+             | (Attacks.bishopAttacks(square, occupied) & diagonal)
+             | (Attacks.rookAttacks(square, occupied) & straight);
+    }
+}
@@ -1,64 +1,91 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 
 abstract class Board extends Index {
-    Index[][] board = new Index[8][8];
-    private final Map<String, List<Move>> moveHistory = new HashMap<>();
-    private Move mostRecentMove;
-    private String mostRecentColor;
+    // Direction and jump tables for attack detection, shared by every call
+    private static final int[] PAWN_CAPTURE_COLUMNS = {-1, 1};
+    private static final int[][] KNIGHT_JUMPS = {{-2,-1},{-2,1},{-1,-2},{-1,2},{1,-2},{1,2},{2,-1},{2,1}};
+    private static final int[][] DIAGONAL_DIRECTIONS = {{-1,-1},{-1,1},{1,-1},{1,1}};
+    private static final int[][] STRAIGHT_DIRECTIONS = {{-1,0},{1,0},{0,-1},{0,1}};
+    private static final int[][] ALL_DIRECTIONS = {{-1,-1},{-1,1},{1,-1},{1,1},{-1,0},{1,0},{0,-1},{0,1}};
 
-    protected Board() {
-        moveHistory.put("white", new ArrayList<>());
-        moveHistory.put("black", new ArrayList<>());
-    }
+    Index[][] board = new Index[8][8];
+    // Moves per side index, packed with Move.encode
+    private final MoveLog[] moveHistory = {new MoveLog(), new MoveLog()};
+    private int mostRecentMove = -1;
+    private Side mostRecentColor;
 
-    protected void recordMove(String color, Move move) {
-        String normalized = normalizeColor(color);
-        moveHistory.computeIfAbsent(normalized, k -> new ArrayList<>()).add(move);
-        mostRecentMove = move;
-        mostRecentColor = normalized;
+    protected void recordMove(Side color, int packedMove) {
+        moveHistory[requireSide(color).index()].add(packedMove);
+        mostRecentMove = packedMove;
+        mostRecentColor = color;
     }
 
-    protected List<Move> getMovesFor(String color) {
-        List<Move> moves = moveHistory.get(normalizeColor(color));
-        return moves == null ? Collections.emptyList() : Collections.unmodifiableList(moves);
+    protected List<Move> getMovesFor(Side color) {
+        return Collections.unmodifiableList(moveHistory[requireSide(color).index()].toList());
     }
 
-    protected Move getLatestMoveFor(String color) {
-        List<Move> moves = moveHistory.get(normalizeColor(color));
-        if (moves == null || moves.isEmpty()) {
+    protected Move getLatestMoveFor(Side color) {
+        MoveLog moves = moveHistory[requireSide(color).index()];
+        if (moves.size == 0) {
             return null;
         }
-        return moves.get(moves.size() - 1);
+        return Move.decode(moves.moves[moves.size - 1]);
     }
 
     protected Move getMostRecentMove() {
-        return mostRecentMove;
+        return mostRecentMove < 0 ? null : Move.decode(mostRecentMove);
     }
 
-    protected String getMostRecentMoveColor() {
+    protected Side getMostRecentMoveColor() {
         return mostRecentColor;
     }
 
-    protected Map<String, List<Move>> getMoveHistorySnapshot() {
-        Map<String, List<Move>> snapshot = new HashMap<>();
-        moveHistory.forEach((color, moves) -> snapshot.put(color, new ArrayList<>(moves)));
+    protected Map<Side, List<Move>> getMoveHistorySnapshot() {
+        Map<Side, List<Move>> snapshot = new EnumMap<>(Side.class);
+        for (Side side : Side.values()) {
+            snapshot.put(side, moveHistory[side.index()].toList());
+        }
         return snapshot;
     }
 
-    private String normalizeColor(String color) {
+    /**
+     * Growable array of packed moves
+     */
+    private static final class MoveLog {
+        int[] moves = new int[16];
+        int size;
+
+        void add(int packedMove) {
+            if (size == moves.length) {
+                moves = Arrays.copyOf(moves, size * 2);
+            }
+            moves[size++] = packedMove;
+        }
+
+        List<Move> toList() {
+            List<Move> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add(Move.decode(moves[i]));
+            }
+            return list;
+        }
+    }
+
+    private static Side requireSide(Side color) {
         if (color == null) {
             throw new IllegalArgumentException("color cannot be null");
         }
-        return color.trim().toLowerCase();
+        return color;
     }
 
-    void addPiece(int pos, String color, int row) {};
-    void movePiece(int pos, String color, int row) {};
-    void removePiece(int pos, String color, int row) {};
+    void addPiece(int pos, Side color, int row) {};
+    void movePiece(int pos, Side color, int row) {};
+    void removePiece(int pos, Side color, int row) {};
 
     // Print board as chess board with piece characters
     protected void printBoard() {
@@ -82,12 +109,11 @@ abstract class Board extends Index {
     // -------- Check validation methods --------
 
     // Find king position for a color, returns [row, col] or null if not found
-    protected int[] findKing(String color) {
+    protected int[] findKing(Side color) {
         for (int r = 0; r < 8; r++) {
             for (int c = 0; c < 8; c++) {
                 Index piece = board[r][c];
-                if (piece != null && piece.piece == 'K' 
-                    && piece.colour != null && piece.colour.equalsIgnoreCase(color)) {
+                if (piece != null && piece.piece == 'K' && piece.colour == color) {
                     return new int[]{r, c};
                 }
             }
@@ -96,7 +122,7 @@ abstract class Board extends Index {
     }
 
     // Check if a square is attacked by any piece of given color
-    protected boolean isSquareAttacked(int row, int col, String byColor) {
+    protected boolean isSquareAttacked(int row, int col, Side byColor) {
         return isAttackedByPawn(row, col, byColor)
             || isAttackedByKnight(row, col, byColor)
             || isAttackedByBishop(row, col, byColor)
@@ -106,15 +132,15 @@ abstract class Board extends Index {
     }
 
     // Check if king of given color is in check
-    protected boolean isKingInCheck(String kingColor) {
+    protected boolean isKingInCheck(Side kingColor) {
         int[] kingPos = findKing(kingColor);
         if (kingPos == null) return false;
-        String opponent = kingColor.equalsIgnoreCase("white") ? "black" : "white";
+        Side opponent = kingColor.opposite();
         return isSquareAttacked(kingPos[0], kingPos[1], opponent);
     }
 
     // Check if moving a piece would expose king (pinned piece check)
-    protected boolean wouldExposeKing(int fromRow, int fromCol, int toRow, int toCol, String color) {
+    protected boolean wouldExposeKing(int fromRow, int fromCol, int toRow, int toCol, Side color) {
         // Save current state
         Index movingPiece = board[fromRow][fromCol];
         Index targetPiece = board[toRow][toCol];
@@ -134,14 +160,13 @@ abstract class Board extends Index {
     }
 
     // Check if king can safely move to target square
-    protected boolean canKingMoveTo(int kingRow, int kingCol, int targetRow, int targetCol, String kingColor) {
+    protected boolean canKingMoveTo(int kingRow, int kingCol, int targetRow, int targetCol, Side kingColor) {
         if (targetRow < 0 || targetRow >= 8 || targetCol < 0 || targetCol >= 8) {
             return false;
         }
         
         Index targetSquare = board[targetRow][targetCol];
-        if (targetSquare != null && targetSquare.colour != null 
-            && targetSquare.colour.equalsIgnoreCase(kingColor)) {
+        if (targetSquare != null && targetSquare.colour == kingColor) {
             return false;
         }
         
@@ -151,7 +176,7 @@ abstract class Board extends Index {
         Index captured = board[targetRow][targetCol];
         board[targetRow][targetCol] = king;
         
-        String opponent = kingColor.equalsIgnoreCase("white") ? "black" : "white";
+        Side opponent = kingColor.opposite();
         boolean safe = !isSquareAttacked(targetRow, targetCol, opponent);
         
         // Restore
@@ -163,15 +188,15 @@ abstract class Board extends Index {
 
     // -------- Attack detection helpers --------
 
-    private boolean isAttackedByPawn(int row, int col, String byColor) {
-        int pawnRow = byColor.equalsIgnoreCase("white") ? row - 1 : row + 1;
+    private boolean isAttackedByPawn(int row, int col, Side byColor) {
+        int pawnRow = byColor == Side.WHITE ? row - 1 : row + 1;
         if (pawnRow < 0 || pawnRow >= 8) return false;
         
-        for (int dc : new int[]{-1, 1}) {
+        for (int dc : PAWN_CAPTURE_COLUMNS) {
             int pawnCol = col + dc;
             if (pawnCol >= 0 && pawnCol < 8) {
                 Index p = board[pawnRow][pawnCol];
-                if (p != null && p.piece == 'P' && p.colour.equalsIgnoreCase(byColor)) {
+                if (p != null && p.piece == 'P' && p.colour == byColor) {
                     return true;
                 }
             }
@@ -179,13 +204,12 @@ abstract class Board extends Index {
         return false;
     }
 
-    private boolean isAttackedByKnight(int row, int col, String byColor) {
-        int[][] moves = {{-2,-1},{-2,1},{-1,-2},{-1,2},{1,-2},{1,2},{2,-1},{2,1}};
-        for (int[] m : moves) {
+    private boolean isAttackedByKnight(int row, int col, Side byColor) {
+        for (int[] m : KNIGHT_JUMPS) {
             int r = row + m[0], c = col + m[1];
             if (r >= 0 && r < 8 && c >= 0 && c < 8) {
                 Index p = board[r][c];
-                if (p != null && p.piece == 'N' && p.colour.equalsIgnoreCase(byColor)) {
+                if (p != null && p.piece == 'N' && p.colour == byColor) {
                     return true;
                 }
             }
@@ -193,28 +217,25 @@ abstract class Board extends Index {
         return false;
     }
 
-    private boolean isAttackedByBishop(int row, int col, String byColor) {
-        int[][] dirs = {{-1,-1},{-1,1},{1,-1},{1,1}};
-        return checkSlidingAttack(row, col, byColor, dirs, 'B');
+    private boolean isAttackedByBishop(int row, int col, Side byColor) {
+        return checkSlidingAttack(row, col, byColor, DIAGONAL_DIRECTIONS, 'B');
     }
 
-    private boolean isAttackedByRook(int row, int col, String byColor) {
-        int[][] dirs = {{-1,0},{1,0},{0,-1},{0,1}};
-        return checkSlidingAttack(row, col, byColor, dirs, 'R');
+    private boolean isAttackedByRook(int row, int col, Side byColor) {
+        return checkSlidingAttack(row, col, byColor, STRAIGHT_DIRECTIONS, 'R');
     }
 
-    private boolean isAttackedByQueen(int row, int col, String byColor) {
-        int[][] dirs = {{-1,-1},{-1,1},{1,-1},{1,1},{-1,0},{1,0},{0,-1},{0,1}};
-        return checkSlidingAttack(row, col, byColor, dirs, 'Q');
+    private boolean isAttackedByQueen(int row, int col, Side byColor) {
+        return checkSlidingAttack(row, col, byColor, ALL_DIRECTIONS, 'Q');
     }
 
-    private boolean checkSlidingAttack(int row, int col, String byColor, int[][] dirs, char piece) {
+    private boolean checkSlidingAttack(int row, int col, Side byColor, int[][] dirs, char piece) {
         for (int[] d : dirs) {
             int r = row + d[0], c = col + d[1];
             while (r >= 0 && r < 8 && c >= 0 && c < 8) {
                 Index p = board[r][c];
                 if (p != null) {
-                    if (p.piece == piece && p.colour.equalsIgnoreCase(byColor)) return true;
+                    if (p.piece == piece && p.colour == byColor) return true;
                     break;
                 }
                 r += d[0];
@@ -224,14 +245,14 @@ abstract class Board extends Index {
         return false;
     }
 
-    private boolean isAttackedByKing(int row, int col, String byColor) {
+    private boolean isAttackedByKing(int row, int col, Side byColor) {
         for (int dr = -1; dr <= 1; dr++) {
             for (int dc = -1; dc <= 1; dc++) {
                 if (dr == 0 && dc == 0) continue;
                 int r = row + dr, c = col + dc;
                 if (r >= 0 && r < 8 && c >= 0 && c < 8) {
                     Index p = board[r][c];
-                    if (p != null && p.piece == 'K' && p.colour.equalsIgnoreCase(byColor)) {
+                    if (p != null && p.piece == 'K' && p.colour == byColor) {
                         return true;
                     }
                 }
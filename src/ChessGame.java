@@ -27,6 +27,7 @@ public class ChessGame extends Application {
     private int selectedRow = -1;
     private int selectedCol = -1;
     private boolean pieceSelected = false;
+    private final MoveList moveBuffer = new MoveList();
     
     @Override
     public void start(Stage primaryStage) {
@@ -167,7 +168,7 @@ public class ChessGame extends Application {
         if (!pieceSelected) {
             // Select a piece
             Piece piece = gameBoard.getPiece(row, col);
-            if (piece != null && piece.getColor().equals(gameBoard.getCurrentTurn())) {
+            if (piece != null && piece.getColor() == gameBoard.getCurrentTurn()) {
                 selectedRow = row;
                 selectedCol = col;
                 pieceSelected = true;
@@ -192,21 +193,26 @@ public class ChessGame extends Application {
                     updateBoard();
                     clearSelection();
                     
-                    String opponent = gameBoard.getCurrentTurn();
-                    turnLabel.setText(capitalize(opponent) + "'s Turn");
+                    Side opponent = gameBoard.getCurrentTurn();
+                    turnLabel.setText(capitalize(opponent.toString()) + "'s Turn");
                     
                     // Check for check/checkmate
-                    if (gameBoard.isInCheck(opponent)) {
-                        if (gameBoard.isCheckmate(opponent)) {
-                            String winner = opponent.equals("white") ? "Black" : "White";
+                    GameStatus status = gameBoard.getStatus();
+                    if (status.isInCheck()) {
+                        if (status.isCheckmate()) {
+                            String winner = opponent == Side.WHITE ? "Black" : "White";
                             statusLabel.setText("CHECKMATE! " + winner + " wins!");
                             showAlert("Checkmate!", winner + " wins the game!");
                         } else {
-                            statusLabel.setText(capitalize(opponent) + " is in CHECK!");
+                            statusLabel.setText(capitalize(opponent.toString()) + " is in CHECK!");
                         }
-                    } else if (gameBoard.isStalemate(opponent)) {
+                    } else if (status.isStalemate()) {
                         statusLabel.setText("STALEMATE! Game is a draw.");
                         showAlert("Stalemate!", "The game is a draw.");
+                    } else if (status.isDraw()) {
+                        String reason = status.getDrawReason().getDescription();
+                        statusLabel.setText("DRAW by " + reason + ".");
+                        showAlert("Draw!", "The game is a draw by " + reason + ".");
                     } else {
                         statusLabel.setText("Move successful");
                     }
@@ -224,19 +230,19 @@ public class ChessGame extends Application {
     }
     
     private void highlightValidMoves(int row, int col) {
-        for (int r = 0; r < BOARD_SIZE; r++) {
-            for (int c = 0; c < BOARD_SIZE; c++) {
-                if (gameBoard.isValidMove(row, col, r, c)) {
-                    Rectangle rect = (Rectangle) tiles[r][c].getChildren().get(0);
-                    Piece targetPiece = gameBoard.getPiece(r, c);
-                    if (targetPiece != null) {
-                        rect.setStroke(Color.RED);
-                    } else {
-                        rect.setStroke(Color.LIGHTGREEN);
-                    }
-                    rect.setStrokeWidth(3);
-                }
+        int count = gameBoard.generateLegalMoves(row, col, moveBuffer);
+        for (int i = 0; i < count; i++) {
+            int to = MoveList.to(moveBuffer.get(i));
+            int r = to / BOARD_SIZE;
+            int c = to % BOARD_SIZE;
+            Rectangle rect = (Rectangle) tiles[r][c].getChildren().get(0);
+            Piece targetPiece = gameBoard.getPiece(r, c);
+            if (targetPiece != null) {
+                rect.setStroke(Color.RED);
+            } else {
+                rect.setStroke(Color.LIGHTGREEN);
             }
+            rect.setStrokeWidth(3);
         }
     }
     
@@ -268,10 +274,10 @@ public class ChessGame extends Application {
                 if (piece != null) {
                     Label pieceLabel = new Label(piece.getSymbol());
                     pieceLabel.setFont(Font.font("Arial", FontWeight.BOLD, 48));
-                    pieceLabel.setTextFill(piece.getColor().equals("white") ? Color.WHITE : Color.BLACK);
+                    pieceLabel.setTextFill(piece.getColor() == Side.WHITE ? Color.WHITE : Color.BLACK);
                     
                     // Add shadow effect for better visibility
-                    if (piece.getColor().equals("white")) {
+                    if (piece.getColor() == Side.WHITE) {
                         pieceLabel.setStyle("-fx-effect: dropshadow(gaussian, black, 2, 0.5, 1, 1);");
                     } else {
                         pieceLabel.setStyle("-fx-effect: dropshadow(gaussian, white, 2, 0.5, 1, 1);");
@@ -24,6 +24,7 @@ public class ChessGameSwing extends JFrame {
     private int selectedCol = -1;
     private boolean pieceSelected = false;
     private List<int[]> validMoveSquares = new ArrayList<>();
+    private final MoveList moveBuffer = new MoveList();
     
     // Colors
     private static final Color LIGHT_SQUARE = new Color(240, 217, 181);
@@ -147,7 +148,8 @@ public class ChessGameSwing extends JFrame {
                 // Highlight king if in check
                 Piece piece = gameBoard.getPiece(row, col);
                 if (piece != null && piece.getType() == Piece.Type.KING) {
-                    if (gameBoard.isInCheck(piece.getColor())) {
+                    GameStatus status = gameBoard.getStatus();
+                    if (status.isInCheck() && piece.getColor() == status.getSideToMove()) {
                         g2d.setColor(CHECK_COLOR);
                         g2d.fillRect(0, 0, getWidth(), getHeight());
                     }
@@ -258,6 +260,20 @@ public class ChessGameSwing extends JFrame {
         newGameBtn.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
         
         panel.add(newGameBtn);
+        panel.add(Box.createRigidArea(new Dimension(0, 10)));
+        
+        // Undo button
+        JButton undoBtn = new JButton("Undo Move");
+        undoBtn.setFont(new Font("Arial", Font.BOLD, 14));
+        undoBtn.setAlignmentX(Component.CENTER_ALIGNMENT);
+        undoBtn.addActionListener(e -> undoMove());
+        undoBtn.setFocusPainted(false);
+        undoBtn.setBackground(new Color(70, 130, 180));
+        undoBtn.setForeground(Color.WHITE);
+        undoBtn.setBorder(BorderFactory.createEmptyBorder(10, 20, 10, 20));
+        undoBtn.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        
+        panel.add(undoBtn);
         
         return panel;
     }
@@ -266,7 +282,7 @@ public class ChessGameSwing extends JFrame {
         if (!pieceSelected) {
             // Select a piece
             Piece piece = gameBoard.getPiece(row, col);
-            if (piece != null && piece.getColor().equals(gameBoard.getCurrentTurn())) {
+            if (piece != null && piece.getColor() == gameBoard.getCurrentTurn()) {
                 selectedRow = row;
                 selectedCol = col;
                 pieceSelected = true;
@@ -276,7 +292,7 @@ public class ChessGameSwing extends JFrame {
                 repaintBoard();
             } else if (piece != null) {
                 statusLabel.setText("<html><center>Not your turn!<br>" + 
-                                   capitalize(gameBoard.getCurrentTurn()) + "'s turn</center></html>");
+                                   capitalize(gameBoard.getCurrentTurn().toString()) + "'s turn</center></html>");
             } else {
                 statusLabel.setText("<html><center>Empty square</center></html>");
             }
@@ -293,24 +309,29 @@ public class ChessGameSwing extends JFrame {
                     clearSelection();
                     updateBoard();
                     
-                    String opponent = gameBoard.getCurrentTurn();
-                    turnLabel.setText(capitalize(opponent) + "'s Turn");
-                    turnLabel.setForeground(opponent.equals("white") ? 
+                    Side opponent = gameBoard.getCurrentTurn();
+                    turnLabel.setText(capitalize(opponent.toString()) + "'s Turn");
+                    turnLabel.setForeground(opponent == Side.WHITE ? 
                                            new Color(144, 238, 144) : new Color(255, 182, 193));
                     
                     // Check for check/checkmate/stalemate
-                    if (gameBoard.isInCheck(opponent)) {
-                        if (gameBoard.isCheckmate(opponent)) {
-                            String winner = opponent.equals("white") ? "Black" : "White";
+                    GameStatus status = gameBoard.getStatus();
+                    if (status.isInCheck()) {
+                        if (status.isCheckmate()) {
+                            String winner = opponent == Side.WHITE ? "Black" : "White";
                             statusLabel.setText("<html><center>CHECKMATE!<br>" + winner + " wins!</center></html>");
                             showGameOverDialog(winner + " wins by checkmate!");
                         } else {
-                            statusLabel.setText("<html><center>" + capitalize(opponent) + 
+                            statusLabel.setText("<html><center>" + capitalize(opponent.toString()) + 
                                                "<br>is in CHECK!</center></html>");
                         }
-                    } else if (gameBoard.isStalemate(opponent)) {
+                    } else if (status.isStalemate()) {
                         statusLabel.setText("<html><center>STALEMATE!<br>Game is a draw</center></html>");
                         showGameOverDialog("Stalemate! The game is a draw.");
+                    } else if (status.isDraw()) {
+                        String reason = status.getDrawReason().getDescription();
+                        statusLabel.setText("<html><center>DRAW!<br>" + reason + "</center></html>");
+                        showGameOverDialog("Draw by " + reason + ".");
                     } else {
                         statusLabel.setText("<html><center>Move successful</center></html>");
                     }
@@ -323,11 +344,12 @@ public class ChessGameSwing extends JFrame {
     
     private void calculateValidMoves(int fromRow, int fromCol) {
         validMoveSquares.clear();
-        for (int r = 0; r < BOARD_SIZE; r++) {
-            for (int c = 0; c < BOARD_SIZE; c++) {
-                if (gameBoard.isValidMove(fromRow, fromCol, r, c)) {
-                    validMoveSquares.add(new int[]{r, c});
-                }
+        int count = gameBoard.generateLegalMoves(fromRow, fromCol, moveBuffer);
+        for (int i = 0; i < count; i++) {
+            int to = MoveList.to(moveBuffer.get(i));
+            // Promotions produce one move per piece type for the same square
+            if (!isValidMoveSquare(to / BOARD_SIZE, to % BOARD_SIZE)) {
+                validMoveSquares.add(new int[]{to / BOARD_SIZE, to % BOARD_SIZE});
             }
         }
     }
@@ -357,7 +379,7 @@ public class ChessGameSwing extends JFrame {
                 
                 if (piece != null) {
                     label.setText(piece.getSymbol());
-                    label.setForeground(piece.getColor().equals("white") ? 
+                    label.setForeground(piece.getColor() == Side.WHITE ? 
                                        new Color(255, 255, 255) : new Color(30, 30, 30));
                 } else {
                     label.setText("");
@@ -375,6 +397,21 @@ public class ChessGameSwing extends JFrame {
         }
     }
     
+    private void undoMove() {
+        if (!gameBoard.unmakeMove()) {
+            statusLabel.setText("<html><center>No moves<br>to undo</center></html>");
+            return;
+        }
+        clearSelection();
+        updateBoard();
+        
+        Side turn = gameBoard.getCurrentTurn();
+        turnLabel.setText(capitalize(turn.toString()) + "'s Turn");
+        turnLabel.setForeground(turn == Side.WHITE ? 
+                               new Color(144, 238, 144) : new Color(255, 182, 193));
+        statusLabel.setText("<html><center>Move undone</center></html>");
+    }
+    
     private void resetGame() {
         gameBoard = new GameBoard();
         clearSelection();
@@ -0,0 +1,156 @@
+/**
+ * Static evaluation terms: material plus piece-square tables, with separate
+ * middlegame and endgame values that are blended by the game phase.
+ *
+ * GameBoard adds and subtracts these terms as pieces are placed and removed,
+ * so the evaluation of the current position is always available without
+ * scanning the board.
+ */
+public final class Evaluation {
+
+    /** Phase of the starting position; it drops towards 0 as pieces are traded */
+    public static final int MAX_PHASE = 24;
+
+    // Indexed by Piece.Type ordinal: KING, QUEEN, ROOK, BISHOP, KNIGHT, PAWN
+    private static final int[] MIDDLEGAME_VALUES = {0, 1025, 477, 365, 337, 82};
+    private static final int[] ENDGAME_VALUES = {0, 936, 512, 297, 281, 94};
+    private static final int[] PHASE_WEIGHTS = {0, 4, 2, 1, 1, 0};
+    // Simple values used by static exchange evaluation; the king outweighs any exchange
+    private static final int[] EXCHANGE_VALUES = {20000, 900, 500, 330, 320, 100};
+
+    // Piece-square tables from white's point of view, rank 8 first as seen on a diagram
+    private static final int[] KING_MIDDLEGAME = {
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -20, -30, -30, -40, -40, -30, -30, -20,
+        -10, -20, -20, -20, -20, -20, -20, -10,
+         20,  20,   0,   0,   0,   0,  20,  20,
+         20,  30,  10,   0,   0,  10,  30,  20
+    };
+    private static final int[] KING_ENDGAME = {
+        -50, -40, -30, -20, -20, -30, -40, -50,
+        -30, -20, -10,   0,   0, -10, -20, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -30,   0,   0,   0,   0, -30, -30,
+        -50, -30, -30, -30, -30, -30, -30, -50
+    };
+    private static final int[] QUEEN_TABLE = {
+        -20, -10, -10,  -5,  -5, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,   5,   5,   5,   0, -10,
+         -5,   0,   5,   5,   5,   5,   0,  -5,
+          0,   0,   5,   5,   5,   5,   0,  -5,
+        -10,   5,   5,   5,   5,   5,   0, -10,
+        -10,   0,   5,   0,   0,   0,   0, -10,
+        -20, -10, -10,  -5,  -5, -10, -10, -20
+    };
+    private static final int[] ROOK_TABLE = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+          5,  10,  10,  10,  10,  10,  10,   5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+          0,   0,   0,   5,   5,   0,   0,   0
+    };
+    private static final int[] BISHOP_TABLE = {
+        -20, -10, -10, -10, -10, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,  10,  10,   5,   0, -10,
+        -10,   5,   5,  10,  10,   5,   5, -10,
+        -10,   0,  10,  10,  10,  10,   0, -10,
+        -10,  10,  10,  10,  10,  10,  10, -10,
+        -10,   5,   0,   0,   0,   0,   5, -10,
+        -20, -10, -10, -10, -10, -10, -10, -20
+    };
+    private static final int[] KNIGHT_TABLE = {
+        -50, -40, -30, -30, -30, -30, -40, -50,
+        -40, -20,   0,   0,   0,   0, -20, -40,
+        -30,   0,  10,  15,  15,  10,   0, -30,
+        -30,   5,  15,  20,  20,  15,   5, -30,
+        -30,   0,  15,  20,  20,  15,   0, -30,
+        -30,   5,  10,  15,  15,  10,   5, -30,
+        -40, -20,   0,   5,   5,   0, -20, -40,
+        -50, -40, -30, -30, -30, -30, -40, -50
+    };
+    private static final int[] PAWN_MIDDLEGAME = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+         50,  50,  50,  50,  50,  50,  50,  50,
+         10,  10,  20,  30,  30,  20,  10,  10,
+          5,   5,  10,  25,  25,  10,   5,   5,
+          0,   0,   0,  20,  20,   0,   0,   0,
+          5,  -5, -10,   0,   0, -10,  -5,   5,
+          5,  10,  10, -20, -20,  10,  10,   5,
+          0,   0,   0,   0,   0,   0,   0,   0
+    };
+    private static final int[] PAWN_ENDGAME = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+         80,  80,  80,  80,  80,  80,  80,  80,
+         50,  50,  50,  50,  50,  50,  50,  50,
+         30,  30,  30,  30,  30,  30,  30,  30,
+         15,  15,  15,  15,  15,  15,  15,  15,
+          5,   5,   5,   5,   5,   5,   5,   5,
+          0,   0,   0,   0,   0,   0,   0,   0,
+          0,   0,   0,   0,   0,   0,   0,   0
+    };
+
+    // Material plus table value, indexed by [color * 6 + Piece.Type ordinal][square]
+    private static final int[][] MIDDLEGAME = new int[12][64];
+    private static final int[][] ENDGAME = new int[12][64];
+
+    static {
+        int[][] middlegameTables = {KING_MIDDLEGAME, QUEEN_TABLE, ROOK_TABLE, BISHOP_TABLE, KNIGHT_TABLE, PAWN_MIDDLEGAME};
+        int[][] endgameTables = {KING_ENDGAME, QUEEN_TABLE, ROOK_TABLE, BISHOP_TABLE, KNIGHT_TABLE, PAWN_ENDGAME};
+        for (int type = 0; type < 6; type++) {
+            for (int sq = 0; sq < 64; sq++) {
+                int row = sq >>> 3, col = sq & 7;
+                // White reads the diagram upside down (a1 is the first entry of the last line)
+                int whiteIndex = (7 - row) * 8 + col;
+                int blackIndex = row * 8 + col;
+                MIDDLEGAME[type][sq] = MIDDLEGAME_VALUES[type] + middlegameTables[type][whiteIndex];
+                ENDGAME[type][sq] = ENDGAME_VALUES[type] + endgameTables[type][whiteIndex];
+                MIDDLEGAME[6 + type][sq] = MIDDLEGAME_VALUES[type] + middlegameTables[type][blackIndex];
+                ENDGAME[6 + type][sq] = ENDGAME_VALUES[type] + endgameTables[type][blackIndex];
+            }
+        }
+    }
+
+    private Evaluation() {
+    }
+
+    public static int middlegame(int color, Piece.Type type, int square) {
+        return MIDDLEGAME[color * 6 + type.ordinal()][square];
+    }
+
+    public static int endgame(int color, Piece.Type type, int square) {
+        return ENDGAME[color * 6 + type.ordinal()][square];
+    }
+
+    /**
+     * How much the piece counts towards the middlegame phase
+     */
+    public static int phaseWeight(Piece.Type type) {
+        return PHASE_WEIGHTS[type.ordinal()];
+    }
+
+    /**
+     * Value of a piece type when counting captures in a static exchange
+     */
+    public static int exchangeValue(Piece.Type type) {
+        return EXCHANGE_VALUES[type.ordinal()];
+    }
+
+    /**
+     * Blends middlegame and endgame scores: all middlegame at MAX_PHASE, all endgame at 0
+     */
+    public static int blend(int middlegame, int endgame, int phase) {
+        int p = Math.min(phase, MAX_PHASE);
+        return (middlegame * p + endgame * (MAX_PHASE - p)) / MAX_PHASE;
+    }
+}
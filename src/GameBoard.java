@@ -1,5 +1,4 @@
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * Represents the chess game board and handles all game logic.
@@ -7,16 +6,100 @@ import java.util.List;
  */
 public class GameBoard {
     
-    private Piece[][] board = new Piece[8][8];
-    private String currentTurn = "white";
-    private List<MoveRecord> moveHistory = new ArrayList<>();
+    /** The standard starting position in Forsyth-Edwards Notation */
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    
+    // Mailbox: the piece on each square (row * 8 + col), or null.
+    // Together with the per-side bitboards this indexes every piece both ways.
+    private final Piece[] squares = new Piece[64];
+    private final BitboardPosition position = new BitboardPosition();
+    private Side currentTurn = Side.WHITE;
+    
+    // Move history for unmakeMove, one entry per move played: the move with
+    // its flags and the state it cannot recompute (see packState)
+    private int[] moveStack = new int[256];
+    private int[] stateStack = new int[256];
+    private int historySize;
+    
+    // Zobrist keys of the positions before each move, for repetition detection.
+    // Unlike the move history it is carried over by copy(), so a copied board
+    // still recognizes positions that occurred before the copy was made.
+    private long[] keyHistory = new long[256];
+    private int keyHistorySize;
+    
+    // Scratch buffer for internal legal move queries
+    private final MoveList scratchMoves = new MoveList();
+    
+    // Scratch buffer for staticExchange (at most 32 pieces can take part)
+    private final int[] exchangeGains = new int[34];
+    private static final Piece.Type[] EXCHANGE_ORDER = {
+        Piece.Type.PAWN, Piece.Type.KNIGHT, Piece.Type.BISHOP, Piece.Type.ROOK, Piece.Type.QUEEN, Piece.Type.KING
+    };
     
     // For en passant tracking
     private int enPassantTargetRow = -1;
     private int enPassantTargetCol = -1;
     
+    // File of the en passant target hashed into zobristKey, or -1. Only a target
+    // that an enemy pawn stands ready to capture on is hashed, so a double push
+    // nobody can answer en passant does not break a repetition.
+    private int hashedEnPassantCol = -1;
+    
+    // Castling rights, as a combination of the flags below
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    
+    // Rights kept when a piece moves from or to each square
+    private static final int[] CASTLING_RIGHTS_MASK = new int[64];
+    static {
+        Arrays.fill(CASTLING_RIGHTS_MASK, WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_RIGHTS_MASK[4] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_RIGHTS_MASK[0] &= ~WHITE_QUEENSIDE;
+        CASTLING_RIGHTS_MASK[7] &= ~WHITE_KINGSIDE;
+        CASTLING_RIGHTS_MASK[60] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_RIGHTS_MASK[56] &= ~BLACK_QUEENSIDE;
+        CASTLING_RIGHTS_MASK[63] &= ~BLACK_KINGSIDE;
+    }
+    
+    private int castlingRights = WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE;
+    
+    // Moves since the last capture or pawn move, and the move number starting at 1
+    private int halfmoveClock = 0;
+    private int fullmoveNumber = 1;
+    
+    // Zobrist key of the current position, kept up to date by every change of state
+    private long zobristKey;
+    
+    // Evaluation terms per color and the game phase, kept up to date as pieces move
+    private final int[] middlegameScore = new int[2];
+    private final int[] endgameScore = new int[2];
+    private int gamePhase;
+    
+    // Number of pieces on the board, indexed by Piece.getIndex()
+    private final int[] pieceCounts = new int[12];
+    
+    // Light squares (b1, a2, ...), used to tell bishops of the same square color apart
+    private static final long LIGHT_SQUARES = 0x55AA55AA55AA55AAL;
+    
+    // Status of the current position, computed on first request and dropped by every move
+    private GameStatus status;
+    
+    // Scratch space for setPosition: the parsed placement and a view over byte input
+    private final Piece[] fenSquares = new Piece[64];
+    private final AsciiSequence fenBytes = new AsciiSequence();
+    
     public GameBoard() {
         initializeBoard();
+        zobristKey = computeZobristKey();
+    }
+    
+    /**
+     * Creates a board from a position in Forsyth-Edwards Notation
+     */
+    public GameBoard(CharSequence fen) {
+        setPosition(fen);
     }
     
     /**
@@ -24,127 +107,700 @@ public class GameBoard {
      */
     private void initializeBoard() {
         // White pieces (row 0 and 1)
-        board[0][0] = new Piece(Piece.Type.ROOK, "white", 0, 0);
-        board[0][1] = new Piece(Piece.Type.KNIGHT, "white", 0, 1);
-        board[0][2] = new Piece(Piece.Type.BISHOP, "white", 0, 2);
-        board[0][3] = new Piece(Piece.Type.QUEEN, "white", 0, 3);
-        board[0][4] = new Piece(Piece.Type.KING, "white", 0, 4);
-        board[0][5] = new Piece(Piece.Type.BISHOP, "white", 0, 5);
-        board[0][6] = new Piece(Piece.Type.KNIGHT, "white", 0, 6);
-        board[0][7] = new Piece(Piece.Type.ROOK, "white", 0, 7);
+        placePiece(Piece.of(Piece.Type.ROOK, Side.WHITE), 0 * 8 + 0);
+        placePiece(Piece.of(Piece.Type.KNIGHT, Side.WHITE), 0 * 8 + 1);
+        placePiece(Piece.of(Piece.Type.BISHOP, Side.WHITE), 0 * 8 + 2);
+        placePiece(Piece.of(Piece.Type.QUEEN, Side.WHITE), 0 * 8 + 3);
+        placePiece(Piece.of(Piece.Type.KING, Side.WHITE), 0 * 8 + 4);
+        placePiece(Piece.of(Piece.Type.BISHOP, Side.WHITE), 0 * 8 + 5);
+        placePiece(Piece.of(Piece.Type.KNIGHT, Side.WHITE), 0 * 8 + 6);
+        placePiece(Piece.of(Piece.Type.ROOK, Side.WHITE), 0 * 8 + 7);
         
         for (int col = 0; col < 8; col++) {
-            board[1][col] = new Piece(Piece.Type.PAWN, "white", 1, col);
+            placePiece(Piece.of(Piece.Type.PAWN, Side.WHITE), 1 * 8 + col);
         }
         
         // Black pieces (row 6 and 7)
-        board[7][0] = new Piece(Piece.Type.ROOK, "black", 7, 0);
-        board[7][1] = new Piece(Piece.Type.KNIGHT, "black", 7, 1);
-        board[7][2] = new Piece(Piece.Type.BISHOP, "black", 7, 2);
-        board[7][3] = new Piece(Piece.Type.QUEEN, "black", 7, 3);
-        board[7][4] = new Piece(Piece.Type.KING, "black", 7, 4);
-        board[7][5] = new Piece(Piece.Type.BISHOP, "black", 7, 5);
-        board[7][6] = new Piece(Piece.Type.KNIGHT, "black", 7, 6);
-        board[7][7] = new Piece(Piece.Type.ROOK, "black", 7, 7);
+        placePiece(Piece.of(Piece.Type.ROOK, Side.BLACK), 7 * 8 + 0);
+        placePiece(Piece.of(Piece.Type.KNIGHT, Side.BLACK), 7 * 8 + 1);
+        placePiece(Piece.of(Piece.Type.BISHOP, Side.BLACK), 7 * 8 + 2);
+        placePiece(Piece.of(Piece.Type.QUEEN, Side.BLACK), 7 * 8 + 3);
+        placePiece(Piece.of(Piece.Type.KING, Side.BLACK), 7 * 8 + 4);
+        placePiece(Piece.of(Piece.Type.BISHOP, Side.BLACK), 7 * 8 + 5);
+        placePiece(Piece.of(Piece.Type.KNIGHT, Side.BLACK), 7 * 8 + 6);
+        placePiece(Piece.of(Piece.Type.ROOK, Side.BLACK), 7 * 8 + 7);
         
         for (int col = 0; col < 8; col++) {
-            board[6][col] = new Piece(Piece.Type.PAWN, "black", 6, col);
+            placePiece(Piece.of(Piece.Type.PAWN, Side.BLACK), 6 * 8 + col);
+        }
+    }
+    
+    /**
+     * Copies the position of another board (pieces are immutable and shared)
+     */
+    private GameBoard(GameBoard other) {
+        for (int square = 0; square < 64; square++) {
+            Piece piece = other.squares[square];
+            if (piece != null) {
+                placePiece(piece, square);
+            }
+        }
+        currentTurn = other.currentTurn;
+        enPassantTargetRow = other.enPassantTargetRow;
+        enPassantTargetCol = other.enPassantTargetCol;
+        hashedEnPassantCol = other.hashedEnPassantCol;
+        castlingRights = other.castlingRights;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        zobristKey = other.zobristKey;
+        keyHistory = Arrays.copyOf(other.keyHistory, other.keyHistory.length);
+        keyHistorySize = other.keyHistorySize;
+    }
+    
+    /**
+     * Creates an independent copy of the current position that can be used on
+     * another thread. The copy starts with an empty move history but keeps the
+     * keys of earlier positions, so repetitions are still detected.
+     */
+    public GameBoard copy() {
+        return new GameBoard(this);
+    }
+    
+    /**
+     * Replaces the position with the one described by a FEN string, clearing the
+     * move history and the repetition keys. The text is read in place, one
+     * character at a time, so loading many positions into one board allocates
+     * nothing. The castling, en passant and clock fields may be left out and
+     * default to "- - 0 1". Throws IllegalArgumentException for a malformed FEN
+     * or an impossible position (a pawn on the first or last rank, not exactly one
+     * king per side, or the side not to move in check), leaving the board
+     * unchanged. Castling rights without the king and rook on their home squares
+     * are dropped.
+     */
+    public void setPosition(CharSequence fen) {
+        int length = fen.length();
+        
+        // Piece placement, from rank 8 down to rank 1
+        Arrays.fill(fenSquares, null);
+        int i = skipSpaces(fen, 0);
+        int end = fieldEnd(fen, i);
+        int row = 7, col = 0;
+        int whiteKings = 0, blackKings = 0;
+        for (; i < end; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (col != 8 || row == 0) throw invalidFen(fen, "rank " + (row + 1) + " does not have 8 squares");
+                row--;
+                col = 0;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+                if (col > 8) throw invalidFen(fen, "rank " + (row + 1) + " has more than 8 squares");
+            } else {
+                Piece.Type type = Piece.Type.fromNotation(c);
+                if (type == null) throw invalidFen(fen, "unknown piece '" + c + "'");
+                if (col >= 8) throw invalidFen(fen, "rank " + (row + 1) + " has more than 8 squares");
+                if (type == Piece.Type.PAWN && (row == 0 || row == 7)) {
+                    throw invalidFen(fen, "pawn on rank " + (row + 1));
+                }
+                Side color = Character.isUpperCase(c) ? Side.WHITE : Side.BLACK;
+                if (type == Piece.Type.KING) {
+                    if (color == Side.WHITE) whiteKings++;
+                    else blackKings++;
+                }
+                fenSquares[row * 8 + col] = Piece.of(type, color);
+                col++;
+            }
+        }
+        if (row != 0 || col != 8) throw invalidFen(fen, "the placement does not cover 8 ranks of 8 squares");
+        if (whiteKings != 1 || blackKings != 1) throw invalidFen(fen, "each side must have exactly one king");
+        
+        // Side to move
+        i = skipSpaces(fen, end);
+        end = fieldEnd(fen, i);
+        if (end - i != 1 || (fen.charAt(i) != 'w' && fen.charAt(i) != 'b')) {
+            throw invalidFen(fen, "the side to move must be 'w' or 'b'");
+        }
+        Side turn = fen.charAt(i) == 'b' ? Side.BLACK : Side.WHITE;
+        
+        // Castling rights
+        int rights = 0;
+        i = skipSpaces(fen, end);
+        end = fieldEnd(fen, i);
+        if (end - i == 1 && fen.charAt(i) == '-') {
+            i = end;
+        }
+        for (; i < end; i++) {
+            switch (fen.charAt(i)) {
+                case 'K': rights |= WHITE_KINGSIDE; break;
+                case 'Q': rights |= WHITE_QUEENSIDE; break;
+                case 'k': rights |= BLACK_KINGSIDE; break;
+                case 'q': rights |= BLACK_QUEENSIDE; break;
+                default: throw invalidFen(fen, "unknown castling right '" + fen.charAt(i) + "'");
+            }
+        }
+        if (!isFenPiece(4, Piece.Type.KING, Side.WHITE)) rights &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        if (!isFenPiece(7, Piece.Type.ROOK, Side.WHITE)) rights &= ~WHITE_KINGSIDE;
+        if (!isFenPiece(0, Piece.Type.ROOK, Side.WHITE)) rights &= ~WHITE_QUEENSIDE;
+        if (!isFenPiece(60, Piece.Type.KING, Side.BLACK)) rights &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        if (!isFenPiece(63, Piece.Type.ROOK, Side.BLACK)) rights &= ~BLACK_KINGSIDE;
+        if (!isFenPiece(56, Piece.Type.ROOK, Side.BLACK)) rights &= ~BLACK_QUEENSIDE;
+        
+        // The side that just moved cannot have left its king in check
+        if (isFenKingAttacked(turn.opposite(), turn)) {
+            throw invalidFen(fen, "the side not to move is in check");
+        }
+        
+        // En passant target, which must lie behind a pawn that just made a double step
+        int epRow = -1, epCol = -1;
+        i = skipSpaces(fen, end);
+        end = fieldEnd(fen, i);
+        if (end - i == 2) {
+            epCol = fen.charAt(i) - 'a';
+            epRow = fen.charAt(i + 1) - '1';
+            if (epCol < 0 || epCol > 7 || epRow != (turn == Side.WHITE ? 5 : 2)) {
+                throw invalidFen(fen, "invalid en passant square");
+            }
+            // The pushed pawn stands beyond the target; the target and the pawn's start square are empty
+            int direction = turn == Side.WHITE ? -8 : 8;
+            int target = epRow * 8 + epCol;
+            if (!isFenPiece(target + direction, Piece.Type.PAWN, turn.opposite())
+                    || fenSquares[target] != null || fenSquares[target - direction] != null) {
+                throw invalidFen(fen, "en passant square not behind a pawn that just moved two squares");
+            }
+        } else if (end - i > 0 && (end - i != 1 || fen.charAt(i) != '-')) {
+            throw invalidFen(fen, "invalid en passant square");
+        }
+        
+        // Halfmove clock and fullmove number
+        i = skipSpaces(fen, end);
+        end = fieldEnd(fen, i);
+        int halfmove = end > i ? parseFenNumber(fen, i, end) : 0;
+        i = skipSpaces(fen, end);
+        end = fieldEnd(fen, i);
+        int fullmove = end > i ? parseFenNumber(fen, i, end) : 1;
+        if (skipSpaces(fen, end) != length) throw invalidFen(fen, "unexpected text after the move number");
+        
+        // The FEN is valid: replace the position
+        for (int square = 0; square < 64; square++) {
+            takePiece(square);
+            if (fenSquares[square] != null) {
+                placePiece(fenSquares[square], square);
+            }
+        }
+        currentTurn = turn;
+        castlingRights = rights;
+        enPassantTargetRow = epRow;
+        enPassantTargetCol = epCol;
+        hashedEnPassantCol = isEnPassantCapturable() ? epCol : -1;
+        halfmoveClock = Math.min(halfmove, 0xFFFF);
+        fullmoveNumber = Math.max(fullmove, 1);
+        zobristKey = computeZobristKey();
+        historySize = 0;
+        keyHistorySize = 0;
+        status = null;
+    }
+    
+    /**
+     * Replaces the position with the FEN held as ASCII text in a range of a byte
+     * array, such as a line of a file buffer, without decoding it to a String
+     */
+    public void setPosition(byte[] fen, int offset, int length) {
+        setPosition(fenBytes.set(fen, offset, length));
+    }
+    
+    private boolean isFenPiece(int square, Piece.Type type, Side color) {
+        return fenSquares[square] == Piece.of(type, color);
+    }
+    
+    /**
+     * Checks if the king of the given color in the parsed placement is attacked
+     * by a piece of the other side
+     */
+    private boolean isFenKingAttacked(Side color, Side bySide) {
+        long occupied = 0;
+        int king = -1;
+        for (int square = 0; square < 64; square++) {
+            Piece piece = fenSquares[square];
+            if (piece == null) continue;
+            occupied |= 1L << square;
+            if (piece == Piece.of(Piece.Type.KING, color)) king = square;
+        }
+        long kingBit = 1L << king;
+        for (int square = 0; square < 64; square++) {
+            Piece piece = fenSquares[square];
+            if (piece == null || piece.getColor() != bySide) continue;
+            long attacks;
+            switch (piece.getType()) {
+                case PAWN:
+                    attacks = Attacks.pawnAttacks(bySide.index(), square);
+                    break;
+                case KNIGHT:
+                    attacks = Attacks.knightAttacks(square);
+                    break;
+                case BISHOP:
+                    attacks = Attacks.bishopAttacks(square, occupied);
+                    break;
+                case ROOK:
+                    attacks = Attacks.rookAttacks(square, occupied);
+                    break;
+                case QUEEN:
+                    attacks = Attacks.queenAttacks(square, occupied);
+                    break;
+                default:
+                    attacks = Attacks.kingAttacks(square);
+                    break;
+            }
+            if ((attacks & kingBit) != 0) return true;
+        }
+        return false;
+    }
+    
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+    
+    private static int skipSpaces(CharSequence text, int index) {
+        while (index < text.length() && isSpace(text.charAt(index))) index++;
+        return index;
+    }
+    
+    private static int fieldEnd(CharSequence text, int index) {
+        while (index < text.length() && !isSpace(text.charAt(index))) index++;
+        return index;
+    }
+    
+    private static int parseFenNumber(CharSequence fen, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = fen.charAt(i);
+            if (c < '0' || c > '9' || value > 99_999) throw invalidFen(fen, "invalid move counter");
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+    
+    private static IllegalArgumentException invalidFen(CharSequence fen, String reason) {
+        return new IllegalArgumentException("Invalid FEN (" + reason + "): " + fen);
+    }
+    
+    /**
+     * Returns the current position in Forsyth-Edwards Notation
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(90);
+        appendFen(fen);
+        return fen.toString();
+    }
+    
+    /**
+     * Appends the current position in Forsyth-Edwards Notation, so a caller
+     * writing many positions can reuse one StringBuilder
+     */
+    public void appendFen(StringBuilder out) {
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                Piece piece = squares[row * 8 + col];
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                out.append(piece.getFenLetter());
+            }
+            if (empty > 0) out.append((char) ('0' + empty));
+            if (row > 0) out.append('/');
+        }
+        
+        out.append(currentTurn == Side.WHITE ? " w " : " b ");
+        
+        if (castlingRights == 0) {
+            out.append('-');
+        } else {
+            if ((castlingRights & WHITE_KINGSIDE) != 0) out.append('K');
+            if ((castlingRights & WHITE_QUEENSIDE) != 0) out.append('Q');
+            if ((castlingRights & BLACK_KINGSIDE) != 0) out.append('k');
+            if ((castlingRights & BLACK_QUEENSIDE) != 0) out.append('q');
+        }
+        
+        out.append(' ');
+        if (enPassantTargetCol >= 0) {
+            out.append((char) ('a' + enPassantTargetCol)).append((char) ('1' + enPassantTargetRow));
+        } else {
+            out.append('-');
+        }
+        
+        out.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+    }
+    
+    /**
+     * Puts a piece on an empty square, keeping the mailbox and the bitboards in sync
+     */
+    private void placePiece(Piece piece, int square) {
+        int color = piece.getColor().index();
+        squares[square] = piece;
+        position.addPiece(color, piece.getType(), square);
+        zobristKey ^= Zobrist.piece(color, piece.getType(), square);
+        middlegameScore[color] += Evaluation.middlegame(color, piece.getType(), square);
+        endgameScore[color] += Evaluation.endgame(color, piece.getType(), square);
+        gamePhase += Evaluation.phaseWeight(piece.getType());
+        pieceCounts[piece.getIndex()]++;
+    }
+    
+    /**
+     * Clears a square, keeping the mailbox and the bitboards in sync.
+     * Returns the piece that was there, if any.
+     */
+    private Piece takePiece(int square) {
+        Piece piece = squares[square];
+        if (piece != null) {
+            int color = piece.getColor().index();
+            squares[square] = null;
+            position.removePiece(color, piece.getType(), square);
+            zobristKey ^= Zobrist.piece(color, piece.getType(), square);
+            middlegameScore[color] -= Evaluation.middlegame(color, piece.getType(), square);
+            endgameScore[color] -= Evaluation.endgame(color, piece.getType(), square);
+            gamePhase -= Evaluation.phaseWeight(piece.getType());
+            pieceCounts[piece.getIndex()]--;
+        }
+        return piece;
+    }
+    
+    /**
+     * Sets the en passant target; the pieces must already be in place, since
+     * they decide whether the target is part of the Zobrist key
+     */
+    private void setEnPassantTarget(int row, int col) {
+        if (hashedEnPassantCol >= 0) zobristKey ^= Zobrist.enPassant(hashedEnPassantCol);
+        enPassantTargetRow = row;
+        enPassantTargetCol = col;
+        hashedEnPassantCol = isEnPassantCapturable() ? col : -1;
+        if (hashedEnPassantCol >= 0) zobristKey ^= Zobrist.enPassant(col);
+    }
+    
+    /**
+     * Checks if a pawn of the side that did not make the double push stands
+     * beside the pushed pawn, ready to take it en passant (pins are not considered)
+     */
+    private boolean isEnPassantCapturable() {
+        if (enPassantTargetCol < 0) return false;
+        // A white double push leaves the target on row 2 and the pawn on row 3
+        boolean whitePushed = enPassantTargetRow == 2;
+        int pawnSquare = (whitePushed ? 3 : 4) * 8 + enPassantTargetCol;
+        long beside = 0;
+        if (enPassantTargetCol > 0) beside |= 1L << (pawnSquare - 1);
+        if (enPassantTargetCol < 7) beside |= 1L << (pawnSquare + 1);
+        int capturer = whitePushed ? BitboardPosition.BLACK : BitboardPosition.WHITE;
+        return (position.getPieces(capturer, Piece.Type.PAWN) & beside) != 0;
+    }
+    
+    private void setCastlingRights(int rights) {
+        zobristKey ^= Zobrist.castling(castlingRights) ^ Zobrist.castling(rights);
+        castlingRights = rights;
+    }
+    
+    private void switchTurn() {
+        currentTurn = currentTurn.opposite();
+        zobristKey ^= Zobrist.sideToMove();
+    }
+    
+    /**
+     * Computes the Zobrist key of the current position from scratch
+     */
+    private long computeZobristKey() {
+        long key = 0L;
+        for (int square = 0; square < 64; square++) {
+            Piece piece = squares[square];
+            if (piece != null) {
+                key ^= Zobrist.piece(piece.getColor().index(), piece.getType(), square);
+            }
         }
+        if (currentTurn == Side.BLACK) key ^= Zobrist.sideToMove();
+        key ^= Zobrist.castling(castlingRights);
+        if (isEnPassantCapturable()) key ^= Zobrist.enPassant(enPassantTargetCol);
+        return key;
+    }
+    
+    /**
+     * Returns the 64-bit Zobrist key identifying the current position.
+     * Positions with the same pieces, side to move, castling rights and
+     * en passant file have the same key; the en passant file only counts when
+     * a pawn stands ready to capture there.
+     */
+    public long getZobristKey() {
+        return zobristKey;
+    }
+    
+    /**
+     * Static evaluation of the current position in centipawns, from the point of
+     * view of the side to move: material and piece-square values, blended between
+     * middlegame and endgame by the remaining material
+     */
+    public int evaluate() {
+        int side = currentTurn.index();
+        int middlegame = middlegameScore[side] - middlegameScore[side ^ 1];
+        int endgame = endgameScore[side] - endgameScore[side ^ 1];
+        return Evaluation.blend(middlegame, endgame, gamePhase);
     }
     
     public Piece getPiece(int row, int col) {
         if (!isValidSquare(row, col)) return null;
-        return board[row][col];
+        return squares[row * 8 + col];
     }
     
-    public String getCurrentTurn() {
+    /**
+     * Returns the square (row * 8 + col) of the king of the given color, or -1 if there is none
+     */
+    public int getKingSquare(Side color) {
+        return position.kingSquare(color.index());
+    }
+    
+    /**
+     * Returns the squares occupied by pieces of the given color and type as a bitboard
+     * (bit row * 8 + col is set for each such piece)
+     */
+    public long getPieceBitboard(Side color, Piece.Type type) {
+        return position.getPieces(color.index(), type);
+    }
+    
+    public Side getCurrentTurn() {
         return currentTurn;
     }
     
     /**
      * Attempts to move a piece from one square to another.
+     * Pawns reaching the last rank are promoted to a queen.
      * Returns true if the move was successful.
      */
     public boolean movePiece(int fromRow, int fromCol, int toRow, int toCol) {
+        return movePiece(fromRow, fromCol, toRow, toCol, Piece.Type.QUEEN);
+    }
+    
+    /**
+     * Attempts to move a piece from one square to another, promoting a pawn
+     * that reaches the last rank to the given piece type.
+     * Returns true if the move was successful.
+     */
+    public boolean movePiece(int fromRow, int fromCol, int toRow, int toCol, Piece.Type promotion) {
+        if (promotion == null || promotion == Piece.Type.KING || promotion == Piece.Type.PAWN) {
+            promotion = Piece.Type.QUEEN;
+        }
         Piece piece = getPiece(fromRow, fromCol);
         if (piece == null) return false;
-        if (!piece.getColor().equals(currentTurn)) return false;
+        if (piece.getColor() != currentTurn) return false;
         
         if (!isValidMove(fromRow, fromCol, toRow, toCol)) return false;
         
-        // Handle special moves
-        Piece captured = board[toRow][toCol];
-        boolean isEnPassant = false;
-        boolean isCastling = false;
-        int rookFromCol = -1, rookToCol = -1;
-        
-        // En passant capture
-        if (piece.getType() == Piece.Type.PAWN && toCol != fromCol && captured == null) {
-            if (toRow == enPassantTargetRow && toCol == enPassantTargetCol) {
-                isEnPassant = true;
-                int capturedPawnRow = piece.getColor().equals("white") ? toRow - 1 : toRow + 1;
-                captured = board[capturedPawnRow][toCol];
-                board[capturedPawnRow][toCol] = null;
-            }
+        makeMove(MoveList.encode(fromRow * 8 + fromCol, toRow * 8 + toCol, promotion));
+        status = computeStatus();
+        return true;
+    }
+    
+    /**
+     * Plays a move produced by generateLegalMoves without validating it again.
+     * Moves encoded without flags are accepted too: captures, en passant and
+     * castling are recognized from the position. Everything needed to take the
+     * move back is pushed onto the move history, so every makeMove can be
+     * reversed with unmakeMove.
+     */
+    public void makeMove(int move) {
+        int from = MoveList.from(move);
+        int to = MoveList.to(move);
+        Piece piece = squares[from];
+        boolean isPawn = piece.getType() == Piece.Type.PAWN;
+        
+        int state = packState();
+        int flags = MoveList.QUIET;
+        pushKey(zobristKey);
+        
+        // Captures; an en passant victim stands beside the moving pawn
+        Piece captured = takePiece(to);
+        if (captured != null) {
+            flags = MoveList.CAPTURE;
+        } else if (isPawn && (to & 7) != (from & 7)) {
+            flags = MoveList.EN_PASSANT;
+            captured = takePiece((from & ~7) | (to & 7));
         }
         
-        // Castling
-        if (piece.getType() == Piece.Type.KING && Math.abs(toCol - fromCol) == 2) {
-            isCastling = true;
-            if (toCol > fromCol) { // Kingside
-                rookFromCol = 7;
-                rookToCol = 5;
-            } else { // Queenside
-                rookFromCol = 0;
-                rookToCol = 3;
-            }
-            // Move rook
-            Piece rook = board[fromRow][rookFromCol];
-            board[fromRow][rookFromCol] = null;
-            board[fromRow][rookToCol] = rook;
-            rook.setPosition(fromRow, rookToCol);
+        // Castling moves the rook as well
+        if (piece.getType() == Piece.Type.KING && Math.abs(to - from) == 2) {
+            boolean kingside = to > from;
+            flags = kingside ? MoveList.KING_CASTLE : MoveList.QUEEN_CASTLE;
+            placePiece(takePiece(kingside ? from + 3 : from - 4), kingside ? from + 1 : from - 1);
         }
         
-        // Execute move
-        board[fromRow][fromCol] = null;
-        board[toRow][toCol] = piece;
-        piece.setPosition(toRow, toCol);
+        // Execute move, promoting a pawn that reaches the last rank (to a queen unless the move says otherwise)
+        takePiece(from);
+        int toRow = to >>> 3;
+        if (isPawn && (toRow == 7 || toRow == 0)) {
+            Piece.Type promotion = MoveList.promotion(move);
+            if (promotion == null) promotion = Piece.Type.QUEEN;
+            placePiece(Piece.of(promotion, piece.getColor()), to);
+            flags |= MoveList.promotionFlags(promotion);
+        } else {
+            placePiece(piece, to);
+        }
         
         // Update en passant target
-        enPassantTargetRow = -1;
-        enPassantTargetCol = -1;
-        if (piece.getType() == Piece.Type.PAWN && Math.abs(toRow - fromRow) == 2) {
-            enPassantTargetRow = (fromRow + toRow) / 2;
-            enPassantTargetCol = fromCol;
-        }
-        
-        // Pawn promotion (auto-promote to queen for simplicity)
-        if (piece.getType() == Piece.Type.PAWN) {
-            if ((piece.getColor().equals("white") && toRow == 7) ||
-                (piece.getColor().equals("black") && toRow == 0)) {
-                board[toRow][toCol] = new Piece(Piece.Type.QUEEN, piece.getColor(), toRow, toCol);
-            }
+        if (isPawn && Math.abs(to - from) == 16) {
+            flags = MoveList.DOUBLE_PUSH;
+            setEnPassantTarget((from + to) >>> 4, from & 7);
+        } else {
+            setEnPassantTarget(-1, -1);
         }
         
-        // Record move
-        moveHistory.add(new MoveRecord(piece, fromRow, fromCol, toRow, toCol, captured, isEnPassant, isCastling));
+        // A king or rook leaving (or a rook being captured on) its home square loses castling rights
+        setCastlingRights(castlingRights & CASTLING_RIGHTS_MASK[from] & CASTLING_RIGHTS_MASK[to]);
         
-        // Switch turn
-        currentTurn = currentTurn.equals("white") ? "black" : "white";
+        halfmoveClock = (isPawn || captured != null) ? 0 : halfmoveClock + 1;
+        if (currentTurn == Side.BLACK) {
+            fullmoveNumber++;
+        }
+        
+        if (captured != null) {
+            state |= (captured.getIndex() + 1) << CAPTURED_SHIFT;
+        }
+        pushHistory(MoveList.encode(from, to, flags), state);
+        switchTurn();
+        status = null;
+    }
+    
+    /**
+     * Takes back the last move played, restoring the full position state.
+     * Returns false if there is no move to take back.
+     */
+    public boolean unmakeMove() {
+        if (historySize == 0) return false;
+        historySize--;
+        int move = moveStack[historySize];
+        int state = stateStack[historySize];
+        int from = MoveList.from(move);
+        int to = MoveList.to(move);
+        
+        switchTurn();
+        if (currentTurn == Side.BLACK) {
+            fullmoveNumber--;
+        }
+        
+        // Put the moving piece back, turning a promoted piece back into a pawn
+        Piece piece = takePiece(to);
+        if (MoveList.isPromotion(move)) {
+            piece = Piece.of(Piece.Type.PAWN, piece.getColor());
+        }
+        placePiece(piece, from);
         
+        if (MoveList.isCastling(move)) {
+            boolean kingside = to > from;
+            placePiece(takePiece(kingside ? from + 1 : from - 1), kingside ? from + 3 : from - 4);
+        }
+        
+        int captured = state >>> CAPTURED_SHIFT;
+        if (captured != 0) {
+            placePiece(Piece.fromIndex(captured - 1), MoveList.isEnPassant(move) ? (from & ~7) | (to & 7) : to);
+        }
+        
+        setCastlingRights(state & 0xF);
+        int enPassantSquare = ((state >>> 4) & 0x7F) - 1;
+        setEnPassantTarget(enPassantSquare < 0 ? -1 : enPassantSquare >>> 3, enPassantSquare < 0 ? -1 : enPassantSquare & 7);
+        halfmoveClock = (state >>> 11) & 0xFFFF;
+        keyHistorySize--;
+        status = null;
         return true;
     }
     
+    // State bits of the history: castling rights in bits 0-3, en passant square + 1
+    // in bits 4-10, halfmove clock in bits 11-26 and the captured piece's index + 1
+    // (0 for no capture) from bit 27
+    private static final int CAPTURED_SHIFT = 27;
+    
+    /**
+     * Packs the state before a move that makeMove overwrites and unmakeMove cannot recompute
+     */
+    private int packState() {
+        int enPassantSquare = enPassantTargetCol < 0 ? 0 : enPassantTargetRow * 8 + enPassantTargetCol + 1;
+        return castlingRights | (enPassantSquare << 4) | (Math.min(halfmoveClock, 0xFFFF) << 11);
+    }
+    
+    private void pushHistory(int move, int state) {
+        if (historySize == moveStack.length) {
+            moveStack = Arrays.copyOf(moveStack, historySize * 2);
+            stateStack = Arrays.copyOf(stateStack, historySize * 2);
+        }
+        moveStack[historySize] = move;
+        stateStack[historySize] = state;
+        historySize++;
+    }
+    
+    private void pushKey(long key) {
+        if (keyHistorySize == keyHistory.length) {
+            keyHistory = Arrays.copyOf(keyHistory, keyHistorySize * 2);
+        }
+        keyHistory[keyHistorySize++] = key;
+    }
+    
+    /**
+     * Returns the number of moves that can be taken back with unmakeMove
+     */
+    public int getMoveCount() {
+        return historySize;
+    }
+    
+    /**
+     * Estimates the heap retained by this board, in bytes, for a 64-bit JVM with
+     * compressed references. Pieces are shared and not counted. The history
+     * arrays grow with the game, so the figure does too.
+     */
+    public long getMemoryFootprint() {
+        // Object header 12 bytes, references 4 bytes, everything padded to 8
+        long bytes = objectBytes(12 + 14 * 4 + 9 * 4 + 8);          // 14 references, 9 ints, 1 long
+        bytes += arrayBytes(squares.length, 4) + arrayBytes(fenSquares.length, 4);
+        bytes += arrayBytes(moveStack.length, 4) + arrayBytes(stateStack.length, 4);
+        bytes += arrayBytes(keyHistory.length, 8);
+        bytes += objectBytes(12 + 4 + 4) + arrayBytes(MoveList.MAX_MOVES, 4); // scratchMoves
+        bytes += arrayBytes(exchangeGains.length, 4) + arrayBytes(pieceCounts.length, 4);
+        bytes += arrayBytes(middlegameScore.length, 4) + arrayBytes(endgameScore.length, 4);
+        bytes += objectBytes(12 + 2 * 4 + 8)                         // position and its bitboards
+                + arrayBytes(2, 4) + 2 * arrayBytes(pieceCounts.length / 2, 8) + arrayBytes(2, 8);
+        bytes += objectBytes(12 + 4 + 2 * 4);                        // fenBytes
+        if (status != null) {
+            bytes += objectBytes(12 + 4 + 1 + 4 + 4);
+        }
+        return bytes;
+    }
+    
+    private static long objectBytes(int fieldBytes) {
+        return (fieldBytes + 7) & ~7L;
+    }
+    
+    private static long arrayBytes(int length, int elementBytes) {
+        return (16 + (long) length * elementBytes + 7) & ~7L;
+    }
+    
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+    
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+    
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+    
     /**
      * Checks if a move is valid (including checking if it would leave king in check)
      */
     public boolean isValidMove(int fromRow, int fromCol, int toRow, int toCol) {
         Piece piece = getPiece(fromRow, fromCol);
-        if (piece == null) return false;
+        if (piece == null || !isValidSquare(toRow, toCol)) return false;
         
         // Can't move to a square occupied by own piece
         Piece target = getPiece(toRow, toCol);
-        if (target != null && target.getColor().equals(piece.getColor())) return false;
+        if (target != null && target.getColor() == piece.getColor()) return false;
         
         // Check piece-specific move rules
         if (!isPieceMoveLegal(piece, fromRow, fromCol, toRow, toCol)) return false;
@@ -155,6 +811,265 @@ public class GameBoard {
         return true;
     }
     
+    /**
+     * Generates all legal moves for the given color into the supplied buffer.
+     * The buffer is cleared first; moves are encoded as described in MoveList.
+     * Returns the number of moves generated.
+     */
+    public int generateLegalMoves(Side color, MoveList moves) {
+        moves.clear();
+        generateMoves(color.index(), -1L, false, moves);
+        return moves.size();
+    }
+    
+    /**
+     * Generates the legal moves of the given color's pieces of one type, as used
+     * when resolving a move written in algebraic notation.
+     * Returns the number of moves generated.
+     */
+    public int generateLegalMoves(Side color, Piece.Type type, MoveList moves) {
+        moves.clear();
+        generateMoves(color.index(), position.getPieces(color.index(), type), false, moves);
+        return moves.size();
+    }
+    
+    /**
+     * Generates only the legal captures (including en passant) and promotions
+     * for the given color, as used by quiescence search.
+     * Returns the number of moves generated.
+     */
+    public int generateLegalCaptures(Side color, MoveList moves) {
+        moves.clear();
+        generateMoves(color.index(), -1L, true, moves);
+        return moves.size();
+    }
+    
+    /**
+     * Generates the legal moves of the piece on the given square into the supplied buffer.
+     * Returns the number of moves generated (0 for an empty square).
+     */
+    public int generateLegalMoves(int fromRow, int fromCol, MoveList moves) {
+        moves.clear();
+        Piece piece = getPiece(fromRow, fromCol);
+        if (piece != null) {
+            generateMoves(piece.getColor().index(), 1L << (fromRow * 8 + fromCol), false, moves);
+        }
+        return moves.size();
+    }
+    
+    /**
+     * Generates the legal moves of the pieces in fromMask from the bitboards.
+     * Checkers and pinned pieces are worked out once for the position: while in
+     * check, other pieces may only capture the checker or block its line, and a
+     * pinned piece may only move along the line through its king. Only king
+     * moves and en passant captures, where the mover uncovers its own king in
+     * ways those masks do not capture, are tested against the resulting board.
+     * With capturesOnly set, quiet moves other than promotions are skipped.
+     */
+    private void generateMoves(int side, long fromMask, boolean capturesOnly, MoveList moves) {
+        long own = position.getOccupancy(side);
+        long enemy = position.getOccupancy(side ^ 1);
+        long occupied = position.getOccupied();
+        long targetMask = capturesOnly ? enemy : ~own;
+        
+        int kingSquare = position.kingSquare(side);
+        long checkers = position.checkers(side);
+        long pinned = position.pinnedPieces(side);
+        
+        // Squares a non-king move must land on to deal with a check
+        long checkMask = ~0L;
+        if (checkers != 0) {
+            int checker = Long.numberOfTrailingZeros(checkers);
+            checkMask = (checkers & (checkers - 1)) != 0 ? 0 : checkers | Attacks.between(kingSquare, checker);
+        }
+        
+        long pieces = own & fromMask;
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            Piece piece = squares[from];
+            
+            if (piece.getType() == Piece.Type.KING) {
+                generateKingMoves(side, from, targetMask, checkers == 0 && !capturesOnly, moves);
+                continue;
+            }
+            
+            long allowed = checkMask;
+            if ((pinned & (1L << from)) != 0) {
+                allowed &= Attacks.line(kingSquare, from);
+            }
+            
+            long targets;
+            switch (piece.getType()) {
+                case PAWN:
+                    generatePawnMoves(side, from, capturesOnly, allowed, moves);
+                    continue;
+                case KNIGHT:
+                    targets = Attacks.knightAttacks(from);
+                    break;
+                case BISHOP:
+                    targets = Attacks.bishopAttacks(from, occupied);
+                    break;
+                case ROOK:
+                    targets = Attacks.rookAttacks(from, occupied);
+                    break;
+                case QUEEN:
+                    targets = Attacks.queenAttacks(from, occupied);
+                    break;
+                default:
+                    continue;
+            }
+            
+            targets &= targetMask & allowed;
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                moves.add(MoveList.encode(from, to, (enemy & (1L << to)) != 0 ? MoveList.CAPTURE : MoveList.QUIET));
+            }
+        }
+    }
+    
+    /**
+     * King steps are legal when the target is not attacked once the king has left
+     * its square, so a slider checking along the line cannot be stepped away from
+     */
+    private void generateKingMoves(int side, int from, long targetMask, boolean castling, MoveList moves) {
+        long enemy = position.getOccupancy(side ^ 1);
+        long occupied = position.getOccupied() & ~(1L << from);
+        long targets = Attacks.kingAttacks(from) & targetMask;
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (position.isSquareAttacked(to, side ^ 1, occupied)) continue;
+            moves.add(MoveList.encode(from, to, (enemy & (1L << to)) != 0 ? MoveList.CAPTURE : MoveList.QUIET));
+        }
+        if (castling) {
+            generateCastlingMoves(squares[from], from, moves);
+        }
+    }
+    
+    private void generatePawnMoves(int side, int from, boolean capturesOnly, long allowed, MoveList moves) {
+        int forward = side == BitboardPosition.WHITE ? 8 : -8;
+        int startRow = side == BitboardPosition.WHITE ? 1 : 6;
+        long occupied = position.getOccupied();
+        
+        // Pushes (only promotions when generating captures)
+        int oneStep = from + forward;
+        boolean promotes = (oneStep >>> 3) == 7 || (oneStep >>> 3) == 0;
+        if ((occupied & (1L << oneStep)) == 0 && (!capturesOnly || promotes)) {
+            if ((allowed & (1L << oneStep)) != 0) {
+                addPawnMove(from, oneStep, MoveList.QUIET, moves);
+            }
+            int twoStep = oneStep + forward;
+            if (!capturesOnly && (from >>> 3) == startRow
+                    && (occupied & (1L << twoStep)) == 0 && (allowed & (1L << twoStep)) != 0) {
+                moves.add(MoveList.encode(from, twoStep, MoveList.DOUBLE_PUSH));
+            }
+        }
+        
+        // Captures
+        long targets = position.getOccupancy(side ^ 1) & Attacks.pawnAttacks(side, from) & allowed;
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            addPawnMove(from, to, MoveList.CAPTURE, moves);
+        }
+        
+        // En passant removes two pieces from the king's surroundings at once (the
+        // pawn can be pinned along the rank only together with the captured pawn),
+        // so it is the one pawn move still tried out on the board
+        if (enPassantTargetRow == (side == BitboardPosition.WHITE ? 5 : 2)) {
+            int to = enPassantTargetRow * 8 + enPassantTargetCol;
+            if ((Attacks.pawnAttacks(side, from) & (1L << to)) != 0
+                    && !wouldLeaveKingInCheck(from >>> 3, from & 7, to >>> 3, to & 7, Side.fromIndex(side))) {
+                moves.add(MoveList.encode(from, to, MoveList.EN_PASSANT));
+            }
+        }
+    }
+    
+    /**
+     * Castling is only generated when canCastle has already checked that the king
+     * is not in check and does not pass through or land on an attacked square
+     */
+    private void generateCastlingMoves(Piece king, int from, MoveList moves) {
+        int row = from >>> 3;
+        int col = from & 7;
+        if (canCastle(king, row, col, 6)) {
+            moves.add(MoveList.encode(from, from + 2, MoveList.KING_CASTLE));
+        }
+        if (canCastle(king, row, col, 2)) {
+            moves.add(MoveList.encode(from, from - 2, MoveList.QUEEN_CASTLE));
+        }
+    }
+    
+    /**
+     * Adds a pawn move, expanding moves onto the last rank into the four promotions
+     */
+    private void addPawnMove(int from, int to, int flags, MoveList moves) {
+        int toRow = to >>> 3;
+        if (toRow == 7 || toRow == 0) {
+            moves.add(MoveList.encode(from, to, flags | MoveList.promotionFlags(Piece.Type.QUEEN)));
+            moves.add(MoveList.encode(from, to, flags | MoveList.promotionFlags(Piece.Type.ROOK)));
+            moves.add(MoveList.encode(from, to, flags | MoveList.promotionFlags(Piece.Type.BISHOP)));
+            moves.add(MoveList.encode(from, to, flags | MoveList.promotionFlags(Piece.Type.KNIGHT)));
+        } else {
+            moves.add(MoveList.encode(from, to, flags));
+        }
+    }
+    
+    /**
+     * Static exchange evaluation: estimates the material won or lost (in centipawns)
+     * by the sequence of captures on the move's destination square that starts
+     * with this move, assuming each side always recaptures with its least valuable
+     * attacker and may stop when continuing would lose material.
+     */
+    public int staticExchange(int move) {
+        int from = MoveList.from(move);
+        int to = MoveList.to(move);
+        Piece mover = squares[from];
+        Piece target = squares[to];
+        int[] gain = exchangeGains;
+        
+        long occupied = position.getOccupied() ^ (1L << from);
+        if (target != null) {
+            gain[0] = Evaluation.exchangeValue(target.getType());
+        } else if (mover.getType() == Piece.Type.PAWN && (from & 7) != (to & 7)) {
+            // En passant: the captured pawn stands beside the moving one
+            gain[0] = Evaluation.exchangeValue(Piece.Type.PAWN);
+            occupied ^= 1L << ((from & ~7) | (to & 7));
+        } else {
+            gain[0] = 0;
+        }
+        
+        Piece.Type attacker = mover.getType();
+        int side = mover.getColor().index() ^ 1;
+        int depth = 0;
+        while (true) {
+            depth++;
+            // Score if the piece now on the square gets captured
+            gain[depth] = Evaluation.exchangeValue(attacker) - gain[depth - 1];
+            if (Math.max(-gain[depth - 1], gain[depth]) < 0) break;
+            
+            // Recomputing attackers with the updated occupancy reveals x-ray attackers
+            long attackers = position.attackersTo(to, occupied) & occupied & position.getOccupancy(side);
+            if (attackers == 0) break;
+            attacker = null;
+            for (Piece.Type type : EXCHANGE_ORDER) {
+                long candidates = attackers & position.getPieces(side, type);
+                if (candidates != 0) {
+                    attacker = type;
+                    occupied ^= Long.lowestOneBit(candidates);
+                    break;
+                }
+            }
+            side ^= 1;
+        }
+        while (--depth > 0) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+        }
+        return gain[0];
+    }
+    
     /**
      * Checks if a piece can legally move to the target square (ignoring check)
      */
@@ -182,12 +1097,12 @@ public class GameBoard {
         int colDiff = Math.abs(toCol - fromCol);
         
         // Normal king move (one square in any direction)
-        if (rowDiff <= 1 && colDiff <= 1 && (rowDiff + colDiff > 0)) {
+        if ((Attacks.kingAttacks(fromRow * 8 + fromCol) & (1L << (toRow * 8 + toCol))) != 0) {
             return true;
         }
         
         // Castling
-        if (rowDiff == 0 && colDiff == 2 && !king.hasMoved()) {
+        if (rowDiff == 0 && colDiff == 2) {
             return canCastle(king, fromRow, fromCol, toCol);
         }
         
@@ -195,7 +1110,13 @@ public class GameBoard {
     }
     
     private boolean canCastle(Piece king, int row, int fromCol, int toCol) {
-        String color = king.getColor();
+        Side color = king.getColor();
+        
+        // King and rook must not have moved (tracked by the castling rights)
+        boolean white = color == Side.WHITE;
+        int right = toCol > fromCol ? (white ? WHITE_KINGSIDE : BLACK_KINGSIDE)
+                                    : (white ? WHITE_QUEENSIDE : BLACK_QUEENSIDE);
+        if ((castlingRights & right) == 0 || fromCol != 4 || row != (white ? 0 : 7)) return false;
         
         // Can't castle if in check
         if (isInCheck(color)) return false;
@@ -203,52 +1124,44 @@ public class GameBoard {
         int rookCol = toCol > fromCol ? 7 : 0; // Kingside or Queenside
         Piece rook = getPiece(row, rookCol);
         
-        // Rook must exist and not have moved
-        if (rook == null || rook.getType() != Piece.Type.ROOK || rook.hasMoved()) return false;
+        // Rook must still be there
+        if (rook == null || rook.getType() != Piece.Type.ROOK || rook.getColor() != color) return false;
         
         // Path must be clear
-        int startCol = Math.min(fromCol, rookCol) + 1;
-        int endCol = Math.max(fromCol, rookCol);
-        for (int col = startCol; col < endCol; col++) {
-            if (board[row][col] != null) return false;
-        }
+        if ((Attacks.between(row * 8 + fromCol, row * 8 + rookCol) & position.getOccupied()) != 0) return false;
         
         // King can't pass through or end up in check
         int direction = toCol > fromCol ? 1 : -1;
         for (int col = fromCol; col != toCol + direction; col += direction) {
-            if (isSquareAttacked(row, col, getOpponent(color))) return false;
+            if (isSquareAttacked(row, col, color.opposite())) return false;
         }
         
         return true;
     }
     
     private boolean isValidQueenMove(int fromRow, int fromCol, int toRow, int toCol) {
-        return isValidRookMove(fromRow, fromCol, toRow, toCol) || 
-               isValidBishopMove(fromRow, fromCol, toRow, toCol);
+        long target = 1L << (toRow * 8 + toCol);
+        return (Attacks.queenAttacks(fromRow * 8 + fromCol, position.getOccupied()) & target) != 0;
     }
     
     private boolean isValidRookMove(int fromRow, int fromCol, int toRow, int toCol) {
-        if (fromRow != toRow && fromCol != toCol) return false;
-        return isPathClear(fromRow, fromCol, toRow, toCol);
+        long target = 1L << (toRow * 8 + toCol);
+        return (Attacks.rookAttacks(fromRow * 8 + fromCol, position.getOccupied()) & target) != 0;
     }
     
     private boolean isValidBishopMove(int fromRow, int fromCol, int toRow, int toCol) {
-        int rowDiff = Math.abs(toRow - fromRow);
-        int colDiff = Math.abs(toCol - fromCol);
-        if (rowDiff != colDiff || rowDiff == 0) return false;
-        return isPathClear(fromRow, fromCol, toRow, toCol);
+        long target = 1L << (toRow * 8 + toCol);
+        return (Attacks.bishopAttacks(fromRow * 8 + fromCol, position.getOccupied()) & target) != 0;
     }
     
     private boolean isValidKnightMove(int fromRow, int fromCol, int toRow, int toCol) {
-        int rowDiff = Math.abs(toRow - fromRow);
-        int colDiff = Math.abs(toCol - fromCol);
-        return (rowDiff == 2 && colDiff == 1) || (rowDiff == 1 && colDiff == 2);
+        return (Attacks.knightAttacks(fromRow * 8 + fromCol) & (1L << (toRow * 8 + toCol))) != 0;
     }
     
     private boolean isValidPawnMove(Piece pawn, int fromRow, int fromCol, int toRow, int toCol) {
-        String color = pawn.getColor();
-        int direction = color.equals("white") ? 1 : -1;
-        int startRow = color.equals("white") ? 1 : 6;
+        Side color = pawn.getColor();
+        int direction = color == Side.WHITE ? 1 : -1;
+        int startRow = color == Side.WHITE ? 1 : 6;
         
         int rowDiff = toRow - fromRow;
         int colDiff = Math.abs(toCol - fromCol);
@@ -263,7 +1176,7 @@ public class GameBoard {
         // Double step from starting position
         if (colDiff == 0 && fromRow == startRow && rowDiff == 2 * direction) {
             int middleRow = fromRow + direction;
-            if (board[middleRow][fromCol] == null && target == null) {
+            if (squares[middleRow * 8 + fromCol] == null && target == null) {
                 return true;
             }
         }
@@ -271,11 +1184,12 @@ public class GameBoard {
         // Diagonal capture
         if (colDiff == 1 && rowDiff == direction) {
             // Normal capture
-            if (target != null && !target.getColor().equals(color)) {
+            if (target != null && target.getColor() != color) {
                 return true;
             }
-            // En passant
-            if (toRow == enPassantTargetRow && toCol == enPassantTargetCol) {
+            // En passant (only onto the square behind a pawn of the other color)
+            if (toRow == enPassantTargetRow && toCol == enPassantTargetCol
+                    && enPassantTargetRow == (color == Side.WHITE ? 5 : 2)) {
                 return true;
             }
         }
@@ -284,168 +1198,149 @@ public class GameBoard {
     }
     
     /**
-     * Checks if the path between two squares is clear (for sliding pieces)
+     * Checks if making a move would leave the player's king in check
      */
-    private boolean isPathClear(int fromRow, int fromCol, int toRow, int toCol) {
-        int rowStep = Integer.compare(toRow, fromRow);
-        int colStep = Integer.compare(toCol, fromCol);
-        
-        int r = fromRow + rowStep;
-        int c = fromCol + colStep;
-        
-        while (r != toRow || c != toCol) {
-            if (board[r][c] != null) return false;
-            r += rowStep;
-            c += colStep;
+    private boolean wouldLeaveKingInCheck(int fromRow, int fromCol, int toRow, int toCol, Side color) {
+        // The probe ends in the same position, so the cached status stays valid
+        GameStatus saved = status;
+        makeMove(MoveList.encode(fromRow * 8 + fromCol, toRow * 8 + toCol, null));
+        boolean inCheck = isInCheck(color);
+        unmakeMove();
+        status = saved;
+        return inCheck;
+    }
+    
+    /**
+     * Returns the status of the current position for the side to move. It is
+     * computed with a single legal move generation when first asked for (movePiece
+     * does so right away) and cached until the next move or unmake, so front ends
+     * can query it as often as they like.
+     */
+    public GameStatus getStatus() {
+        if (status == null) {
+            status = computeStatus();
         }
-        
-        return true;
+        return status;
     }
     
     /**
-     * Checks if making a move would leave the player's king in check
+     * Returns the status of the position after a legal move of the side to move,
+     * leaving this position and its cached status as they are
      */
-    private boolean wouldLeaveKingInCheck(int fromRow, int fromCol, int toRow, int toCol, String color) {
-        // Save state
-        Piece movingPiece = board[fromRow][fromCol];
-        Piece capturedPiece = board[toRow][toCol];
-        
-        // Handle en passant capture for simulation
-        Piece enPassantCaptured = null;
-        if (movingPiece.getType() == Piece.Type.PAWN && toCol != fromCol && capturedPiece == null) {
-            if (toRow == enPassantTargetRow && toCol == enPassantTargetCol) {
-                int capturedPawnRow = color.equals("white") ? toRow - 1 : toRow + 1;
-                enPassantCaptured = board[capturedPawnRow][toCol];
-                board[capturedPawnRow][toCol] = null;
-            }
+    public GameStatus getStatusAfter(int move) {
+        GameStatus saved = status;
+        makeMove(move);
+        GameStatus after = computeStatus();
+        unmakeMove();
+        status = saved;
+        return after;
+    }
+    
+    private GameStatus computeStatus() {
+        boolean inCheck = isInCheck(currentTurn);
+        int legalMoves = generateLegalMoves(currentTurn, scratchMoves);
+        GameStatus.DrawReason drawReason = null;
+        if (legalMoves == 0) {
+            // Checkmate stands even when it comes on the hundredth halfmove
+            if (!inCheck) drawReason = GameStatus.DrawReason.STALEMATE;
+        } else if (halfmoveClock >= 100) {
+            drawReason = GameStatus.DrawReason.FIFTY_MOVE_RULE;
+        } else if (countRepetitions() >= 2) {
+            drawReason = GameStatus.DrawReason.THREEFOLD_REPETITION;
+        } else if (hasInsufficientMaterial()) {
+            drawReason = GameStatus.DrawReason.INSUFFICIENT_MATERIAL;
         }
-        
-        // Simulate move
-        board[fromRow][fromCol] = null;
-        board[toRow][toCol] = movingPiece;
-        
-        // Check if king is in check
-        boolean inCheck = isInCheck(color);
-        
-        // Restore state
-        board[fromRow][fromCol] = movingPiece;
-        board[toRow][toCol] = capturedPiece;
-        
-        // Restore en passant captured pawn
-        if (enPassantCaptured != null) {
-            int capturedPawnRow = color.equals("white") ? toRow - 1 : toRow + 1;
-            board[capturedPawnRow][toCol] = enPassantCaptured;
+        return new GameStatus(currentTurn, inCheck, legalMoves, drawReason);
+    }
+    
+    /**
+     * Counts the earlier occurrences of the current position with the same side
+     * to move. Only positions since the last capture or pawn move can match, so
+     * the search stops at the halfmove clock.
+     */
+    private int countRepetitions() {
+        int count = 0;
+        int oldest = Math.max(0, keyHistorySize - halfmoveClock);
+        for (int i = keyHistorySize - 2; i >= oldest; i -= 2) {
+            if (keyHistory[i] == zobristKey) count++;
         }
-        
-        return inCheck;
+        return count;
     }
     
     /**
-     * Checks if the king of the given color is in check
+     * Checks if the current position has occurred before with the same side to move
      */
-    public boolean isInCheck(String color) {
-        int[] kingPos = findKing(color);
-        if (kingPos == null) return false;
-        return isSquareAttacked(kingPos[0], kingPos[1], getOpponent(color));
+    public boolean isRepetition() {
+        return countRepetitions() >= 1;
     }
     
     /**
-     * Checks if the given color is in checkmate
+     * Checks if the current position has occurred at least three times
      */
-    public boolean isCheckmate(String color) {
-        if (!isInCheck(color)) return false;
-        return !hasLegalMoves(color);
+    public boolean isThreefoldRepetition() {
+        return countRepetitions() >= 2;
     }
     
     /**
-     * Checks if the given color is in stalemate
+     * Checks if neither side can deliver checkmate: kings with at most one minor
+     * piece, or with bishops that all stand on squares of one color.
+     * Answered from the piece counts kept by placePiece and takePiece.
      */
-    public boolean isStalemate(String color) {
-        if (isInCheck(color)) return false;
-        return !hasLegalMoves(color);
+    public boolean hasInsufficientMaterial() {
+        if (countBoth(Piece.Type.PAWN) + countBoth(Piece.Type.ROOK) + countBoth(Piece.Type.QUEEN) != 0) return false;
+        int knights = countBoth(Piece.Type.KNIGHT);
+        int bishops = countBoth(Piece.Type.BISHOP);
+        if (knights + bishops <= 1) return true;
+        if (knights != 0) return false;
+        long bishopSquares = position.getPieces(BitboardPosition.WHITE, Piece.Type.BISHOP)
+                           | position.getPieces(BitboardPosition.BLACK, Piece.Type.BISHOP);
+        return (bishopSquares & LIGHT_SQUARES) == 0 || (bishopSquares & ~LIGHT_SQUARES) == 0;
+    }
+    
+    private int countBoth(Piece.Type type) {
+        return pieceCounts[Piece.of(type, Side.WHITE).getIndex()] + pieceCounts[Piece.of(type, Side.BLACK).getIndex()];
     }
     
     /**
-     * Checks if the player has any legal moves
+     * Checks if the king of the given color is in check
      */
-    private boolean hasLegalMoves(String color) {
-        for (int fromRow = 0; fromRow < 8; fromRow++) {
-            for (int fromCol = 0; fromCol < 8; fromCol++) {
-                Piece piece = board[fromRow][fromCol];
-                if (piece != null && piece.getColor().equals(color)) {
-                    for (int toRow = 0; toRow < 8; toRow++) {
-                        for (int toCol = 0; toCol < 8; toCol++) {
-                            if (isValidMove(fromRow, fromCol, toRow, toCol)) {
-                                return true;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        return false;
+    public boolean isInCheck(Side color) {
+        int side = color.index();
+        int kingSquare = position.kingSquare(side);
+        if (kingSquare < 0) return false;
+        return position.isSquareAttacked(kingSquare, side ^ 1);
     }
     
     /**
-     * Finds the king position for the given color
+     * Checks if the given color is in checkmate
      */
-    private int[] findKing(String color) {
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                Piece piece = board[r][c];
-                if (piece != null && piece.getType() == Piece.Type.KING && piece.getColor().equals(color)) {
-                    return new int[]{r, c};
-                }
-            }
-        }
-        return null;
+    public boolean isCheckmate(Side color) {
+        if (color == currentTurn) return getStatus().isCheckmate();
+        if (!isInCheck(color)) return false;
+        return !hasLegalMoves(color);
     }
     
     /**
-     * Checks if a square is attacked by any piece of the given color
+     * Checks if the given color is in stalemate
      */
-    private boolean isSquareAttacked(int row, int col, String byColor) {
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                Piece piece = board[r][c];
-                if (piece != null && piece.getColor().equals(byColor)) {
-                    if (canPieceAttack(piece, r, c, row, col)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+    public boolean isStalemate(Side color) {
+        if (color == currentTurn) return getStatus().isStalemate();
+        if (isInCheck(color)) return false;
+        return !hasLegalMoves(color);
     }
     
     /**
-     * Checks if a piece can attack a target square (simplified attack check)
+     * Checks if the player has any legal moves
      */
-    private boolean canPieceAttack(Piece piece, int fromRow, int fromCol, int toRow, int toCol) {
-        switch (piece.getType()) {
-            case KING:
-                int rowDiff = Math.abs(toRow - fromRow);
-                int colDiff = Math.abs(toCol - fromCol);
-                return rowDiff <= 1 && colDiff <= 1 && (rowDiff + colDiff > 0);
-            case QUEEN:
-                return isValidQueenMove(fromRow, fromCol, toRow, toCol);
-            case ROOK:
-                return isValidRookMove(fromRow, fromCol, toRow, toCol);
-            case BISHOP:
-                return isValidBishopMove(fromRow, fromCol, toRow, toCol);
-            case KNIGHT:
-                return isValidKnightMove(fromRow, fromCol, toRow, toCol);
-            case PAWN:
-                // Pawns attack diagonally
-                int direction = piece.getColor().equals("white") ? 1 : -1;
-                return (toRow - fromRow) == direction && Math.abs(toCol - fromCol) == 1;
-            default:
-                return false;
-        }
+    private boolean hasLegalMoves(Side color) {
+        return generateLegalMoves(color, scratchMoves) > 0;
     }
     
-    private String getOpponent(String color) {
-        return color.equals("white") ? "black" : "white";
+    /**
+     * Checks if a square is attacked by any piece of the given color
+     */
+    private boolean isSquareAttacked(int row, int col, Side byColor) {
+        return position.isSquareAttacked(row * 8 + col, byColor.index());
     }
     
     private boolean isValidSquare(int row, int col) {
@@ -461,8 +1356,8 @@ public class GameBoard {
         for (int r = 7; r >= 0; r--) {
             System.out.print((r + 1) + "|");
             for (int c = 0; c < 8; c++) {
-                if (board[r][c] != null) {
-                    System.out.print(board[r][c].getNotation() + " ");
+                if (squares[r * 8 + c] != null) {
+                    System.out.print(squares[r * 8 + c].getNotation() + " ");
                 } else {
                     System.out.print(". ");
                 }
@@ -472,27 +1367,4 @@ public class GameBoard {
         System.out.println("  ---------------");
         System.out.println("  a b c d e f g h");
     }
-    
-    /**
-     * Record of a move for history/undo functionality
-     */
-    private static class MoveRecord {
-        Piece piece;
-        int fromRow, fromCol, toRow, toCol;
-        Piece captured;
-        boolean isEnPassant;
-        boolean isCastling;
-        
-        MoveRecord(Piece piece, int fromRow, int fromCol, int toRow, int toCol, 
-                   Piece captured, boolean isEnPassant, boolean isCastling) {
-            this.piece = piece;
-            this.fromRow = fromRow;
-            this.fromCol = fromCol;
-            this.toRow = toRow;
-            this.toCol = toCol;
-            this.captured = captured;
-            this.isEnPassant = isEnPassant;
-            this.isCastling = isCastling;
-        }
-    }
 }
@@ -0,0 +1,289 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load generator for GameServer. Opens many connections, each on a virtual
+ * thread, creates a number of games on every connection, then plays random
+ * legal moves in all of them for a fixed time. A game that ends is closed and
+ * replaced by a new one.
+ *
+ * Reports the server's memory per session, both as accounted by the sessions
+ * and as measured on the heap after a collection, with the resulting sessions
+ * per GB, and the moves per second over the run. Commands are pipelined in
+ * batches, so the figures are not bound by one round trip per move.
+ * Requires Java 21.
+ *
+ * Usage:
+ *   java GameLoadClient [--host h] [--port p] [--embedded]
+ *                       [--connections n] [--games n] [--seconds s]
+ * With --embedded the server runs in the same JVM on a free port; its heap
+ * figure then includes the client's connections as well.
+ */
+public class GameLoadClient {
+
+    // Commands written before reading their replies, kept small enough
+    // that neither side can fill the socket buffers and stall
+    private static final int PIPELINE_DEPTH = 32;
+
+    /**
+     * One line-based connection to the server
+     */
+    private static final class Client implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final BufferedWriter out;
+
+        Client(String host, int port) throws IOException {
+            socket = new Socket(host, port);
+            socket.setTcpNoDelay(true);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
+        }
+
+        String request(String command) throws IOException {
+            return exchange(List.of(command)).get(0);
+        }
+
+        /**
+         * Sends the commands in pipelined batches and returns their replies in order
+         */
+        List<String> exchange(List<String> commands) throws IOException {
+            List<String> replies = new ArrayList<>(commands.size());
+            for (int start = 0; start < commands.size(); start += PIPELINE_DEPTH) {
+                int end = Math.min(start + PIPELINE_DEPTH, commands.size());
+                for (int i = start; i < end; i++) {
+                    out.write(commands.get(i));
+                    out.write('\n');
+                }
+                out.flush();
+                for (int i = start; i < end; i++) {
+                    String reply = in.readLine();
+                    if (reply == null) throw new IOException("Server closed the connection");
+                    replies.add(reply);
+                }
+            }
+            return replies;
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    private final String host;
+    private final int port;
+    private final int connections;
+    private final int gamesPerConnection;
+
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder gamesFinished = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public GameLoadClient(String host, int port, int connections, int gamesPerConnection) {
+        if (connections < 1 || gamesPerConnection < 1) {
+            throw new IllegalArgumentException("Connections and games per connection must be positive");
+        }
+        this.host = host;
+        this.port = port;
+        this.connections = connections;
+        this.gamesPerConnection = gamesPerConnection;
+    }
+
+    /**
+     * Runs the load for the given time and prints the results
+     */
+    public void run(long millis) throws IOException, InterruptedException {
+        try (Client control = new Client(host, port)) {
+            long heapBefore = statValue(control.request("STATS GC"), "heap");
+            CountDownLatch created = new CountDownLatch(connections);
+            CountDownLatch started = new CountDownLatch(1);
+            long[] deadline = new long[1];
+
+            ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+            for (int c = 0; c < connections; c++) {
+                threads.execute(() -> {
+                    try {
+                        play(created, started, deadline);
+                    } catch (IOException | InterruptedException e) {
+                        errors.increment();
+                        System.err.println("Connection failed: " + e.getMessage());
+                    }
+                });
+            }
+
+            created.await();
+            String stats = control.request("STATS GC");
+            long sessions = statValue(stats, "sessions");
+            long accounted = statValue(stats, "accounted");
+            long heap = statValue(stats, "heap") - heapBefore;
+            System.out.printf("Sessions: %,d on %,d connections%n", sessions, connections);
+            if (sessions > 0) {
+                System.out.printf("Accounted: %,d bytes/session, %,.0f sessions/GB%n",
+                        accounted / sessions, sessions * 1e9 / Math.max(1, accounted));
+                System.out.printf("Heap:      %,d bytes/session, %,.0f sessions/GB (includes connections)%n",
+                        heap / sessions, sessions * 1e9 / Math.max(1, heap));
+            }
+
+            long start = System.nanoTime();
+            // Saturate instead of overflowing into the past for huge durations
+            long nanos = millis >= Long.MAX_VALUE / 1_000_000L ? Long.MAX_VALUE : Math.max(0, millis) * 1_000_000L;
+            deadline[0] = start + nanos < start ? Long.MAX_VALUE : start + nanos;
+            started.countDown();
+            threads.shutdown();
+            while (!threads.awaitTermination(1, TimeUnit.SECONDS)) {
+                // Waiting for the connections to finish their last round
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            stats = control.request("STATS");
+            System.out.printf("Moves: %,d in %.1f s, %,.0f moves/s (%,d games finished, %,d errors)%n",
+                    moves.sum(), seconds, moves.sum() / seconds, gamesFinished.sum(), errors.sum());
+            System.out.printf("Server: %,d moves played, %,d sessions open%n",
+                    statValue(stats, "moves"), statValue(stats, "sessions"));
+            control.request("QUIT");
+        }
+    }
+
+    /**
+     * One connection: creates its games, waits for the start, then plays
+     * rounds of one random move per game until the deadline
+     */
+    private void play(CountDownLatch created, CountDownLatch started, long[] deadline)
+            throws IOException, InterruptedException {
+        Client client;
+        try {
+            client = new Client(host, port);
+        } catch (IOException e) {
+            created.countDown();
+            throw e;
+        }
+        try (client) {
+            List<String> commands = new ArrayList<>(gamesPerConnection);
+            for (int i = 0; i < gamesPerConnection; i++) {
+                commands.add("NEW");
+            }
+            List<String> games = new ArrayList<>(gamesPerConnection);
+            try {
+                for (String reply : client.exchange(commands)) {
+                    games.add(gameId(reply));
+                }
+            } finally {
+                created.countDown();
+            }
+            started.await();
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (System.nanoTime() < deadline[0]) {
+                commands.clear();
+                for (String game : games) {
+                    commands.add("LEGAL " + game);
+                }
+                List<String> legal = client.exchange(commands);
+
+                commands.clear();
+                List<Integer> moved = new ArrayList<>(games.size());
+                for (int i = 0; i < games.size(); i++) {
+                    String[] words = legal.get(i).split(" ");
+                    if (!words[0].equals("OK") || words.length < 2) {
+                        errors.increment();
+                        continue;
+                    }
+                    commands.add("MOVE " + games.get(i) + " " + words[1 + random.nextInt(words.length - 1)]);
+                    moved.add(i);
+                }
+                List<String> replies = client.exchange(commands);
+
+                // Replace the games that ended
+                commands.clear();
+                List<Integer> ended = new ArrayList<>();
+                for (int j = 0; j < replies.size(); j++) {
+                    String reply = replies.get(j);
+                    if (!reply.startsWith("OK")) {
+                        errors.increment();
+                        continue;
+                    }
+                    moves.increment();
+                    if (!reply.equals("OK ongoing") && !reply.equals("OK check")) {
+                        ended.add(moved.get(j));
+                    }
+                }
+                for (int i : ended) {
+                    commands.add("CLOSE " + games.get(i));
+                    commands.add("NEW");
+                }
+                replies = client.exchange(commands);
+                for (int j = 0; j < ended.size(); j++) {
+                    games.set(ended.get(j), gameId(replies.get(2 * j + 1)));
+                    gamesFinished.increment();
+                }
+            }
+            client.request("QUIT");
+        }
+    }
+
+    private static String gameId(String reply) throws IOException {
+        if (!reply.startsWith("OK ")) throw new IOException("Cannot create a game: " + reply);
+        return reply.substring(3);
+    }
+
+    /**
+     * Reads a named number from a STATS reply
+     */
+    private static long statValue(String stats, String name) {
+        String[] words = stats.split(" ");
+        for (int i = 1; i + 1 < words.length; i++) {
+            if (words[i].equals(name)) return Long.parseLong(words[i + 1]);
+        }
+        throw new IllegalArgumentException("No " + name + " in " + stats);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String host = "localhost";
+        int port = GameServer.DEFAULT_PORT;
+        boolean embedded = false;
+        int connections = 100;
+        int games = 100;
+        long seconds = 10;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            boolean hasValue = i + 1 < args.length;
+            if (arg.equals("--host") && hasValue) host = args[++i];
+            else if (arg.equals("--port") && hasValue) port = Integer.parseInt(args[++i]);
+            else if (arg.equals("--connections") && hasValue) connections = Integer.parseInt(args[++i]);
+            else if (arg.equals("--games") && hasValue) games = Integer.parseInt(args[++i]);
+            else if (arg.equals("--seconds") && hasValue) seconds = Long.parseLong(args[++i]);
+            else if (arg.equals("--embedded")) embedded = true;
+            else {
+                System.out.println("Usage: java GameLoadClient [--host h] [--port p] [--embedded]");
+                System.out.println("                           [--connections n] [--games n] [--seconds s]");
+                return;
+            }
+        }
+
+        GameServer server = null;
+        if (embedded) {
+            server = new GameServer(0, 0).start();
+            host = "localhost";
+            port = server.getPort();
+        }
+        try {
+            new GameLoadClient(host, port, connections, games).run(seconds * 1000);
+        } finally {
+            if (server != null) server.close();
+        }
+    }
+}
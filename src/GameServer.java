@@ -0,0 +1,324 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hosts many games at once over a line-based TCP protocol. Each client
+ * connection is handled on its own virtual thread, so thousands of mostly idle
+ * connections cost little more than their buffers. Requires Java 21.
+ *
+ * Games live in a concurrent map and each one is guarded by its own lock (see
+ * GameSession); there is no lock shared by all games. Every session's memory
+ * is accounted, and with a memory limit new games are refused once the
+ * accounted total reaches it.
+ *
+ * Protocol: one command per line, one reply per command, starting with "OK"
+ * or "ERR <message>". Replies are flushed when no further command is waiting,
+ * so clients may pipeline commands.
+ *   NEW [fen]          -> OK <id>        (ERR for a malformed or impossible position)
+ *   MOVE <id> <uci>    -> OK <status>     e.g. "OK check", "OK checkmate white"
+ *   LEGAL <id>         -> OK <uci> ...
+ *   FEN <id>           -> OK <fen>
+ *   STATUS <id>        -> OK <status>     ongoing, check, checkmate <winner>, draw <reason>
+ *   CLOSE <id>         -> OK
+ *   STATS [GC]         -> OK sessions <n> connections <n> moves <n> accounted <bytes> heap <bytes>
+ *   QUIT               -> OK bye
+ * A game belongs to the connection that created it and is closed when that
+ * connection ends. Only that connection may MOVE or CLOSE it; any connection
+ * may read it with LEGAL, FEN and STATUS by its id.
+ *
+ * Usage:
+ *   java GameServer [--port p] [--max-memory-mb n]
+ */
+public class GameServer implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = 7878;
+
+    private final ServerSocket serverSocket;
+    private final long maxMemoryBytes;
+    private final ExecutorService connectionThreads = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final ConcurrentHashMap<Long, GameSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final LongAdder accountedBytes = new LongAdder();
+    private final LongAdder movesPlayed = new LongAdder();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    /**
+     * Binds the server to a port (0 picks a free one). A memory limit of 0 or
+     * less means no limit.
+     */
+    public GameServer(int port, long maxMemoryBytes) throws IOException {
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(port), 1024);
+        this.maxMemoryBytes = maxMemoryBytes;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections on a virtual thread and returns at once
+     */
+    public GameServer start() {
+        Thread.ofVirtual().name("game-server-accept").start(this::serve);
+        return this;
+    }
+
+    /**
+     * Accepts connections until the server is closed, handing each to a new
+     * virtual thread
+     */
+    public void serve() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connectionThreads.execute(() -> handleConnection(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.err.println("Accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connectionThreads.shutdownNow();
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    public long getMovesPlayed() {
+        return movesPlayed.sum();
+    }
+
+    /**
+     * Estimated bytes retained by all open sessions
+     */
+    public long getAccountedBytes() {
+        return accountedBytes.sum();
+    }
+
+    /**
+     * State of one client connection, used only by its own thread
+     */
+    private static final class Connection {
+        // Notation and MoveList are scratch buffers, not safe to share between threads
+        final Notation notation = new Notation();
+        final MoveList moves = new MoveList();
+        final StringBuilder reply = new StringBuilder(256);
+        final Set<GameSession> owned = new HashSet<>();
+    }
+
+    private void handleConnection(Socket socket) {
+        connections.incrementAndGet();
+        Connection connection = new Connection();
+        StringBuilder reply = connection.reply;
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+            socket.setTcpNoDelay(true);
+            String line;
+            while ((line = in.readLine()) != null) {
+                reply.setLength(0);
+                boolean quit = handle(line.trim(), connection);
+                out.append(reply).append('\n');
+                if (quit) break;
+                if (!in.ready()) out.flush();
+            }
+            out.flush();
+        } catch (SocketException e) {
+            // Connection reset by the client
+        } catch (IOException e) {
+            System.err.println("Connection failed: " + e.getMessage());
+        } finally {
+            for (GameSession session : connection.owned) {
+                closeSession(session);
+            }
+            connections.decrementAndGet();
+        }
+    }
+
+    /**
+     * Handles one command and writes its reply. Returns true on QUIT.
+     */
+    private boolean handle(String line, Connection connection) {
+        StringBuilder reply = connection.reply;
+        String[] words = line.split("\\s+");
+        String command = words[0].toUpperCase(Locale.ROOT);
+        try {
+            switch (command) {
+                case "NEW":
+                    newGame(line, words, connection);
+                    break;
+                case "MOVE":
+                    if (words.length != 3) throw new IllegalArgumentException("usage: MOVE <id> <uci>");
+                    move(owned(session(words[1]), connection), words[2], connection);
+                    break;
+                case "LEGAL":
+                    legalMoves(session(words), connection);
+                    break;
+                case "FEN":
+                    reply.append("OK ").append(session(words).withBoard(GameBoard::toFen));
+                    break;
+                case "STATUS":
+                    session(words).withBoard(board -> appendStatus(board.getStatus(), reply.append("OK ")));
+                    break;
+                case "CLOSE": {
+                    GameSession session = owned(session(words), connection);
+                    connection.owned.remove(session);
+                    closeSession(session);
+                    reply.append("OK");
+                    break;
+                }
+                case "STATS":
+                    stats(words.length > 1 && words[1].equalsIgnoreCase("GC"), reply);
+                    break;
+                case "QUIT":
+                    reply.append("OK bye");
+                    return true;
+                default:
+                    reply.append("ERR unknown command: ").append(words[0]);
+                    break;
+            }
+        } catch (RuntimeException e) {
+            // A failed command is answered and the connection carries on;
+            // illegal moves and positions (such as a bad NEW fen) end up here
+            reply.setLength(0);
+            reply.append("ERR ").append(e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+        return false;
+    }
+
+    private void newGame(String line, String[] words, Connection connection) {
+        if (maxMemoryBytes > 0 && accountedBytes.sum() >= maxMemoryBytes) {
+            throw new IllegalStateException("memory limit reached");
+        }
+        GameBoard board = words.length > 1 ? new GameBoard(line.substring(words[0].length()).trim()) : new GameBoard();
+        long id = nextId.getAndIncrement();
+        GameSession session = new GameSession(id, board, accountedBytes);
+        sessions.put(id, session);
+        connection.owned.add(session);
+        connection.reply.append("OK ").append(id);
+    }
+
+    private void move(GameSession session, String uci, Connection connection) {
+        session.withBoard(board -> {
+            if (board.getStatus().isGameOver()) {
+                throw new IllegalStateException("game " + session.getId() + " is over");
+            }
+            int move = connection.notation.parseUci(board, uci);
+            if (move == 0) {
+                throw new IllegalArgumentException("illegal move: " + uci);
+            }
+            board.makeMove(move);
+            movesPlayed.increment();
+            return appendStatus(board.getStatus(), connection.reply.append("OK "));
+        });
+    }
+
+    private static void legalMoves(GameSession session, Connection connection) {
+        StringBuilder reply = connection.reply.append("OK");
+        session.withBoard(board -> {
+            int count = board.generateLegalMoves(board.getCurrentTurn(), connection.moves);
+            for (int i = 0; i < count; i++) {
+                Notation.appendUci(connection.moves.get(i), reply.append(' '));
+            }
+            return null;
+        });
+    }
+
+    private static StringBuilder appendStatus(GameStatus status, StringBuilder out) {
+        if (status.isCheckmate()) return out.append("checkmate ").append(status.getWinner());
+        if (status.isDraw()) return out.append("draw ").append(status.getDrawReason().name().toLowerCase(Locale.ROOT));
+        return out.append(status.isInCheck() ? "check" : "ongoing");
+    }
+
+    private void stats(boolean collectGarbage, StringBuilder reply) {
+        if (collectGarbage) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        reply.append("OK sessions ").append(sessions.size())
+             .append(" connections ").append(connections.get())
+             .append(" moves ").append(movesPlayed.sum())
+             .append(" accounted ").append(accountedBytes.sum())
+             .append(" heap ").append(runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    private GameSession session(String[] words) {
+        if (words.length != 2) throw new IllegalArgumentException("usage: " + words[0] + " <id>");
+        return session(words[1]);
+    }
+
+    private GameSession session(String id) {
+        GameSession session = null;
+        try {
+            session = sessions.get(Long.parseLong(id));
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        if (session == null) throw new IllegalArgumentException("unknown game: " + id);
+        return session;
+    }
+
+    /**
+     * Returns the session if the connection created it, so others cannot change it
+     */
+    private static GameSession owned(GameSession session, Connection connection) {
+        if (!connection.owned.contains(session)) {
+            throw new IllegalStateException("game " + session.getId() + " belongs to another connection");
+        }
+        return session;
+    }
+
+    private void closeSession(GameSession session) {
+        if (session.close()) {
+            sessions.remove(session.getId());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        long maxMemoryBytes = 0;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--max-memory-mb") && i + 1 < args.length) {
+                maxMemoryBytes = Long.parseLong(args[++i]) << 20;
+            } else {
+                System.out.println("Usage: java GameServer [--port p] [--max-memory-mb n]");
+                return;
+            }
+        }
+        try (GameServer server = new GameServer(port, maxMemoryBytes)) {
+            System.out.println("Listening on port " + server.getPort());
+            server.serve();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * One game hosted by GameServer: a GameBoard, the lock that serializes access
+ * to it, and its share of the server's memory accounting.
+ *
+ * Every session has its own lock, so moves in different games never wait for
+ * each other and only clients playing the same game take turns. The lock is a
+ * ReentrantLock rather than a synchronized block because a virtual thread
+ * blocked on a monitor keeps its carrier thread busy.
+ *
+ * After each access the session re-measures its board and adds the change to
+ * the server-wide total, so the total always matches the live sessions.
+ */
+public class GameSession {
+
+    // The session object, its lock and the lock's internal state
+    private static final long OVERHEAD_BYTES = 48 + 32 + 32;
+
+    private final long id;
+    private final GameBoard board;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder accountedBytes;
+    private long memoryBytes;
+    private boolean closed;
+
+    /**
+     * Creates a session in the given position and adds its memory to the total
+     */
+    public GameSession(long id, GameBoard board, LongAdder accountedBytes) {
+        this.id = id;
+        this.board = board;
+        this.accountedBytes = accountedBytes;
+        this.memoryBytes = OVERHEAD_BYTES + board.getMemoryFootprint();
+        accountedBytes.add(memoryBytes);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Runs an action on the board while holding the session's lock. Throws
+     * IllegalStateException if the session has been closed.
+     */
+    public <T> T withBoard(Function<GameBoard, T> action) {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Game " + id + " is closed");
+            }
+            try {
+                return action.apply(board);
+            } finally {
+                updateMemory(OVERHEAD_BYTES + board.getMemoryFootprint());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the session and removes its memory from the total. Returns false
+     * if it was already closed.
+     */
+    public boolean close() {
+        lock.lock();
+        try {
+            if (closed) return false;
+            closed = true;
+            updateMemory(0);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Estimated bytes retained by the session, as of its last access
+     */
+    public long getMemoryBytes() {
+        lock.lock();
+        try {
+            return memoryBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void updateMemory(long bytes) {
+        if (bytes != memoryBytes) {
+            accountedBytes.add(bytes - memoryBytes);
+            memoryBytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Outcome-related facts about a position, computed once by GameBoard.getStatus
+ * and kept until the position changes: whether the side to move is in check,
+ * how many legal moves it has, and whether the game is over.
+ */
+public final class GameStatus {
+
+    /**
+     * Why a game ended in a draw. The fifty-move rule and threefold repetition
+     * only entitle a player to claim the draw; the status reports them as soon
+     * as they apply so unattended games end without a claim.
+     */
+    public enum DrawReason {
+        STALEMATE("stalemate"),
+        FIFTY_MOVE_RULE("the fifty-move rule"),
+        THREEFOLD_REPETITION("threefold repetition"),
+        INSUFFICIENT_MATERIAL("insufficient material");
+
+        private final String description;
+
+        DrawReason(String description) {
+            this.description = description;
+        }
+
+        /**
+         * Lowercase description for messages, e.g. "threefold repetition"
+         */
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private final Side sideToMove;
+    private final boolean inCheck;
+    private final int legalMoveCount;
+    private final DrawReason drawReason;
+
+    public GameStatus(Side sideToMove, boolean inCheck, int legalMoveCount, DrawReason drawReason) {
+        this.sideToMove = sideToMove;
+        this.inCheck = inCheck;
+        this.legalMoveCount = legalMoveCount;
+        this.drawReason = drawReason;
+    }
+
+    public Side getSideToMove() {
+        return sideToMove;
+    }
+
+    /**
+     * Checks if the side to move is in check
+     */
+    public boolean isInCheck() {
+        return inCheck;
+    }
+
+    public int getLegalMoveCount() {
+        return legalMoveCount;
+    }
+
+    public boolean isCheckmate() {
+        return inCheck && legalMoveCount == 0;
+    }
+
+    public boolean isStalemate() {
+        return drawReason == DrawReason.STALEMATE;
+    }
+
+    public boolean isDraw() {
+        return drawReason != null;
+    }
+
+    /**
+     * Returns the reason for the draw, or null if the game is not drawn
+     */
+    public DrawReason getDrawReason() {
+        return drawReason;
+    }
+
+    public boolean isGameOver() {
+        return isCheckmate() || isDraw();
+    }
+
+    /**
+     * Returns the side that delivered checkmate, or null if there is none
+     */
+    public Side getWinner() {
+        return isCheckmate() ? sideToMove.opposite() : null;
+    }
+
+    @Override
+    public String toString() {
+        if (isCheckmate()) return "checkmate, " + getWinner() + " wins";
+        if (isDraw()) return "draw by " + drawReason.getDescription();
+        return sideToMove + " to move" + (inCheck ? ", in check" : "") + ", " + legalMoveCount + " legal moves";
+    }
+}
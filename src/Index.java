@@ -1,12 +1,12 @@
 class Index {
     int currPos;
     boolean exist=false;
-    String colour;
+    Side colour;
     char piece=' ';
     Index(){
         this.colour=null;
     }
-    Index(int pos,String color,char piece){
+    Index(int pos,Side color,char piece){
         this.currPos=pos;
         this.colour=color;
         this.piece=piece;
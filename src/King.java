@@ -2,20 +2,20 @@ public class King extends Board {
     private static final char SYMBOL = 'K';
     int row = 0, column;
     
-    King(String color, int column) {
+    King(Side color, int column) {
         addPiece(column, color, this.row);
     }
 
     @Override
-    void addPiece(int pos, String color, int row) {
+    void addPiece(int pos, Side color, int row) {
         board[row][pos] = new Index(pos, color, SYMBOL);
         this.column = pos;
         this.row = row;
-        recordMove(color, new Move(Move.Type.ADD, pos, row, SYMBOL));
+        recordMove(color, Move.encode(Move.Type.ADD, pos, row, SYMBOL));
     }
 
     @Override
-    void movePiece(int pos, String color, int row) {
+    void movePiece(int pos, Side color, int row) {
         if (pos < 0 || pos >= 8 || row < 0 || row >= 8) {
             throw new IllegalArgumentException("Position out of bounds for king move");
         }
@@ -26,7 +26,7 @@ public class King extends Board {
             throw new IllegalArgumentException("King can only move one square at a time");
         }
         
-        if (board[row][pos] != null && board[row][pos].colour.equals(color)) {
+        if (board[row][pos] != null && board[row][pos].colour == color) {
             throw new IllegalArgumentException("Cannot capture your own piece");
         }
         
@@ -39,18 +39,18 @@ public class King extends Board {
         board[row][pos] = new Index(pos, color, SYMBOL);
         this.row = row;
         this.column = pos;
-        recordMove(color, new Move(Move.Type.MOVE, pos, row, SYMBOL));
+        recordMove(color, Move.encode(Move.Type.MOVE, pos, row, SYMBOL));
     }
 
     @Override
-    void removePiece(int pos, String color, int row) {
+    void removePiece(int pos, Side color, int row) {
         if (board[row][pos] != null) {
             board[row][pos] = null;
-            recordMove(color, new Move(Move.Type.REMOVE, pos, row, SYMBOL));
+            recordMove(color, Move.encode(Move.Type.REMOVE, pos, row, SYMBOL));
         }
     }
 
-    public boolean isInCheck(String color) {
+    public boolean isInCheck(Side color) {
         return isKingInCheck(color);  // inherited from Board
     }
 
@@ -1,18 +1,18 @@
 public class Knight extends Board{
     private static final char SYMBOL='N';
     int row=0,column;
-    Knight(String color,int column){
+    Knight(Side color,int column){
         addPiece(column,color,this.row);
     }
     @Override
-    void addPiece(int pos, String color, int row) {
+    void addPiece(int pos, Side color, int row) {
         board[row][pos]=new Index(pos,color,SYMBOL);
         this.column=pos;
         this.row=row;
-        recordMove(color,new Move(Move.Type.ADD,pos,row,SYMBOL));
+        recordMove(color,Move.encode(Move.Type.ADD,pos,row,SYMBOL));
     }
     @Override
-    void movePiece(int pos, String color, int row) {
+    void movePiece(int pos, Side color, int row) {
         if(pos<0||pos>=8||row<0||row>=8){
             throw new IllegalArgumentException("Position out of bounds for knight move");
         }
@@ -21,20 +21,20 @@ public class Knight extends Board{
         if(!((colDiff==2&&rowDiff==1)||(colDiff==1&&rowDiff==2))){
             throw new IllegalArgumentException("Invalid knight move");
         }
-        if(board[row][pos]!=null&&board[row][pos].colour.equals(color)){
+        if(board[row][pos]!=null&&board[row][pos].colour == color){
             throw new IllegalArgumentException("Cannot capture your own piece");
         }
         board[this.row][this.column]=null;
         board[row][pos]=new Index(pos,color,SYMBOL);
         this.row=row;
         this.column=pos;
-        recordMove(color,new Move(Move.Type.MOVE,pos,row,SYMBOL));
+        recordMove(color,Move.encode(Move.Type.MOVE,pos,row,SYMBOL));
     }
     @Override
-    void removePiece(int pos, String color, int row) {
+    void removePiece(int pos, Side color, int row) {
         if(board[row][pos]!=null){
             board[row][pos]=null;
-            recordMove(color,new Move(Move.Type.REMOVE,pos,row,SYMBOL));
+            recordMove(color,Move.encode(Move.Type.REMOVE,pos,row,SYMBOL));
         }
     }
 
@@ -1,3 +1,7 @@
+/**
+ * A move recorded by the legacy Board model. Board stores moves packed into
+ * single ints (see encode); Move objects are only created when history is read.
+ */
 public final class Move {
     public enum Type {
         ADD,
@@ -32,4 +36,18 @@ public final class Move {
     public char getPiece() {
         return piece;
     }
+
+    private static final Type[] TYPES = Type.values();
+
+    /**
+     * Packs a move into an int: type in bits 0-1, position in bits 2-4,
+     * row in bits 5-7 and the piece symbol in bits 8-23
+     */
+    public static int encode(Type type, int position, int row, char piece) {
+        return type.ordinal() | ((position & 7) << 2) | ((row & 7) << 5) | (piece << 8);
+    }
+
+    public static Move decode(int packed) {
+        return new Move(TYPES[packed & 3], (packed >>> 2) & 7, (packed >>> 5) & 7, (char) (packed >>> 8));
+    }
 }
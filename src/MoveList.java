@@ -0,0 +1,131 @@
+/**
+ * Reusable, caller-owned buffer of moves filled by GameBoard.generateLegalMoves,
+ * plus the codec for the packed move encoding used throughout the engine.
+ *
+ * A move is a 16-bit int, so generating, storing and comparing moves allocates nothing:
+ *   bits 0-5   from square
+ *   bits 6-11  to square
+ *   bits 12-15 flags: QUIET, DOUBLE_PUSH, KING_CASTLE, QUEEN_CASTLE, CAPTURE,
+ *              EN_PASSANT, or PROMOTION (+ CAPTURE) with the piece in the low two bits
+ * Squares are indexed as row * 8 + col. Moves built with encode(from, to, promotion)
+ * carry no capture or special flags; GameBoard.makeMove accepts them as well.
+ */
+public class MoveList {
+
+    // No legal chess position has more than 218 moves
+    public static final int MAX_MOVES = 256;
+
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = CAPTURE | 1;
+    public static final int PROMOTION = 8;
+
+    // Promotion pieces by the low two flag bits
+    private static final Piece.Type[] PROMOTIONS = {
+        Piece.Type.KNIGHT, Piece.Type.BISHOP, Piece.Type.ROOK, Piece.Type.QUEEN
+    };
+
+    private final int[] moves = new int[MAX_MOVES];
+    private int size;
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void swap(int i, int j) {
+        int move = moves[i];
+        moves[i] = moves[j];
+        moves[j] = move;
+    }
+
+    public static int encode(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    /**
+     * Encodes a move without capture or special flags, promoting to the given piece if not null
+     */
+    public static int encode(int from, int to, Piece.Type promotion) {
+        return encode(from, to, promotion == null ? QUIET : promotionFlags(promotion));
+    }
+
+    /**
+     * Flags of a (non-capturing) promotion to the given piece; add CAPTURE for a capture
+     */
+    public static int promotionFlags(Piece.Type promotion) {
+        switch (promotion) {
+            case KNIGHT: return PROMOTION;
+            case BISHOP: return PROMOTION | 1;
+            case ROOK:   return PROMOTION | 2;
+            case QUEEN:  return PROMOTION | 3;
+            default:
+                throw new IllegalArgumentException("Cannot promote to " + promotion);
+        }
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    /**
+     * Returns the promotion piece of the move, or null if it is not a promotion
+     */
+    public static Piece.Type promotion(int move) {
+        int flags = flags(move);
+        return (flags & PROMOTION) == 0 ? null : PROMOTIONS[flags & 3];
+    }
+
+    public static boolean isPromotion(int move) {
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    /**
+     * Checks the capture flag, which is also set for en passant and capturing promotions
+     */
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return flags(move) == EN_PASSANT;
+    }
+
+    public static boolean isCastling(int move) {
+        int flags = flags(move);
+        return flags == KING_CASTLE || flags == QUEEN_CASTLE;
+    }
+
+    public static boolean isDoublePush(int move) {
+        return flags(move) == DOUBLE_PUSH;
+    }
+
+    /**
+     * Formats a move in long algebraic form, e.g. e2e4 or e7e8q
+     */
+    public static String toString(int move) {
+        return Notation.toUci(move);
+    }
+}
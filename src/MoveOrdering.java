@@ -0,0 +1,234 @@
+import java.util.Arrays;
+
+/**
+ * Orders the moves of a search node so the ones most likely to cause a beta
+ * cutoff are searched first:
+ *   1. the transposition table move
+ *   2. promotions, then captures that do not lose material, by MVV-LVA
+ *      (most valuable victim first, least valuable attacker breaking ties)
+ *   3. the two killer moves of the ply (quiet moves that caused a cutoff
+ *      in a sibling node)
+ *   4. other quiet moves by their history score
+ *   5. captures that lose material by static exchange evaluation
+ *
+ * Scores are kept in per-ply int arrays that are reused for every node, and
+ * moves are picked lazily by selection, so a cutoff after the first few moves
+ * does not pay for sorting the rest.
+ */
+public class MoveOrdering {
+
+    private static final int TT_MOVE_SCORE = 2_000_000;
+    private static final int PROMOTION_SCORE = 1_500_000;
+    private static final int GOOD_CAPTURE_SCORE = 1_000_000;
+    private static final int FIRST_KILLER_SCORE = 900_000;
+    private static final int SECOND_KILLER_SCORE = 800_000;
+    private static final int BAD_CAPTURE_SCORE = -1_000_000;
+
+    // History scores are halved once one of them reaches this, so they stay below the killers
+    private static final int HISTORY_LIMIT = 500_000;
+
+    // Indexed by [victim ordinal][attacker ordinal]
+    private static final int[][] MVV_LVA = new int[6][6];
+
+    static {
+        for (Piece.Type victim : Piece.Type.values()) {
+            for (Piece.Type attacker : Piece.Type.values()) {
+                MVV_LVA[victim.ordinal()][attacker.ordinal()] =
+                    Evaluation.exchangeValue(victim) * 8 - Evaluation.exchangeValue(attacker) / 100;
+            }
+        }
+    }
+
+    private final int[][] scores = new int[Search.MAX_PLY + 1][MoveList.MAX_MOVES];
+    private final int[][] killers = new int[Search.MAX_PLY + 1][2];
+    // Indexed by [color * 6 + Piece.Type ordinal][to square]
+    private final int[][] history = new int[12][64];
+
+    private long cutoffs;
+    private long firstMoveCutoffs;
+    private long cutoffMoveIndexSum;
+
+    /**
+     * Prepares for a new search: killers are cleared and history scores are
+     * aged so older searches count less than the coming one
+     */
+    public void newSearch() {
+        for (int[] slots : killers) {
+            slots[0] = 0;
+            slots[1] = 0;
+        }
+        for (int[] row : history) {
+            for (int sq = 0; sq < 64; sq++) {
+                row[sq] >>= 1;
+            }
+        }
+    }
+
+    /**
+     * Forgets all killers and history scores
+     */
+    public void clear() {
+        for (int[] slots : killers) {
+            slots[0] = 0;
+            slots[1] = 0;
+        }
+        for (int[] row : history) {
+            Arrays.fill(row, 0);
+        }
+    }
+
+    /**
+     * Scores the generated moves of the node at this ply. The board must be in
+     * the position the moves were generated for.
+     */
+    public void score(GameBoard board, MoveList moves, int ply, int ttMove) {
+        int[] plyScores = scores[ply];
+        int[] plyKillers = killers[ply];
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int from = MoveList.from(move);
+            int to = MoveList.to(move);
+            Piece mover = board.getPiece(from >>> 3, from & 7);
+            Piece.Type victim = capturedType(board, move);
+            Piece.Type promotion = MoveList.promotion(move);
+
+            int score;
+            if (move == ttMove) {
+                score = TT_MOVE_SCORE;
+            } else if (promotion != null) {
+                score = PROMOTION_SCORE + Evaluation.exchangeValue(promotion)
+                      + (victim != null ? Evaluation.exchangeValue(victim) : 0);
+            } else if (victim != null) {
+                int mvvLva = MVV_LVA[victim.ordinal()][mover.getType().ordinal()];
+                score = (board.staticExchange(move) >= 0 ? GOOD_CAPTURE_SCORE : BAD_CAPTURE_SCORE) + mvvLva;
+            } else if (move == plyKillers[0]) {
+                score = FIRST_KILLER_SCORE;
+            } else if (move == plyKillers[1]) {
+                score = SECOND_KILLER_SCORE;
+            } else {
+                score = history[historyIndex(mover)][to];
+            }
+            plyScores[i] = score;
+        }
+    }
+
+    /**
+     * Moves the best-scored move among moves[index..] to the index and returns it
+     */
+    public int next(MoveList moves, int ply, int index) {
+        int[] plyScores = scores[ply];
+        int best = index;
+        for (int i = index + 1; i < moves.size(); i++) {
+            if (plyScores[i] > plyScores[best]) {
+                best = i;
+            }
+        }
+        if (best != index) {
+            moves.swap(index, best);
+            int score = plyScores[index];
+            plyScores[index] = plyScores[best];
+            plyScores[best] = score;
+        }
+        return moves.get(index);
+    }
+
+    /**
+     * Sorts all scored moves of the ply, best first
+     */
+    public void sort(MoveList moves, int ply) {
+        for (int i = 0; i < moves.size(); i++) {
+            next(moves, ply, i);
+        }
+    }
+
+    /**
+     * Checks if the move picked at this index was scored as a capture that loses material
+     */
+    public boolean isLosingCapture(int ply, int index) {
+        // Every other kind of move scores zero or more
+        return scores[ply][index] < 0;
+    }
+
+    /**
+     * Records that the move at this index caused a beta cutoff. Quiet moves become
+     * killers of the ply and gain history in proportion to the remaining depth.
+     * Must be called with the board in the position before the move.
+     */
+    public void recordCutoff(GameBoard board, int move, int ply, int depth, int index) {
+        cutoffs++;
+        cutoffMoveIndexSum += index;
+        if (index == 0) {
+            firstMoveCutoffs++;
+        }
+
+        if (MoveList.isCapture(move) || MoveList.isPromotion(move)) {
+            return;
+        }
+        int from = MoveList.from(move);
+        int to = MoveList.to(move);
+        Piece mover = board.getPiece(from >>> 3, from & 7);
+
+        int[] plyKillers = killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+
+        int[] row = history[historyIndex(mover)];
+        row[to] += depth * depth;
+        if (row[to] >= HISTORY_LIMIT) {
+            for (int[] r : history) {
+                for (int sq = 0; sq < 64; sq++) {
+                    r[sq] >>= 1;
+                }
+            }
+        }
+    }
+
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    /**
+     * Share of beta cutoffs caused by the first move searched; the closer to 1,
+     * the better the ordering
+     */
+    public double getFirstMoveCutoffRate() {
+        return cutoffs == 0 ? 0.0 : (double) firstMoveCutoffs / cutoffs;
+    }
+
+    /**
+     * Average position (0 = first) of the move that caused a cutoff
+     */
+    public double getAverageCutoffIndex() {
+        return cutoffs == 0 ? 0.0 : (double) cutoffMoveIndexSum / cutoffs;
+    }
+
+    public void resetStats() {
+        cutoffs = 0;
+        firstMoveCutoffs = 0;
+        cutoffMoveIndexSum = 0;
+    }
+
+    private static int historyIndex(Piece mover) {
+        return mover.getColor().index() * 6 + mover.getType().ordinal();
+    }
+
+    /**
+     * Type of the piece the move captures, or null for a quiet move
+     */
+    private static Piece.Type capturedType(GameBoard board, int move) {
+        if (!MoveList.isCapture(move)) {
+            return null;
+        }
+        if (MoveList.isEnPassant(move)) {
+            return Piece.Type.PAWN;
+        }
+        int to = MoveList.to(move);
+        return board.getPiece(to >>> 3, to & 7).getType();
+    }
+}
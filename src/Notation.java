@@ -0,0 +1,265 @@
+/**
+ * Converts moves between the MoveList encoding and text:
+ *   - Standard Algebraic Notation (SAN), as in PGN files: Nf3, exd5, O-O, e8=Q+, Qh4#
+ *   - UCI long algebraic notation, as in the engine protocol: g1f3, e7e8q
+ *
+ * SAN needs the position the move is played from. Disambiguation ("Nbd7",
+ * "R1e2") comes from one legal move generation for the moving piece type, and
+ * parsing matches the text against that same generation, never probing
+ * candidate squares one by one.
+ *
+ * An instance keeps a scratch move buffer, so it is not thread-safe; use one per
+ * thread. Formatting UCI needs no position and is static.
+ */
+public final class Notation {
+
+    private final MoveList candidates = new MoveList();
+
+    /**
+     * Formats a legal move of the side to move in SAN, with a '+' or '#' suffix
+     * when it gives check or mate
+     */
+    public String toSan(GameBoard board, int move) {
+        StringBuilder san = new StringBuilder(8);
+        appendSan(board, move, san);
+        return san.toString();
+    }
+
+    /**
+     * Appends a legal move of the side to move in SAN. The move may be given
+     * without flags; a pawn move to the last rank without a promotion piece is
+     * taken as a queen promotion. Throws IllegalArgumentException if the move is
+     * not legal in the position.
+     */
+    public void appendSan(GameBoard board, int move, StringBuilder out) {
+        int from = MoveList.from(move);
+        int to = MoveList.to(move);
+        Piece piece = board.getPiece(from >>> 3, from & 7);
+        Side turn = board.getCurrentTurn();
+        if (piece == null || piece.getColor() != turn) {
+            throw new IllegalArgumentException("No piece of the side to move on " + MoveList.toString(move));
+        }
+        Piece.Type type = piece.getType();
+        Piece.Type promotion = MoveList.promotion(move);
+
+        // One generation finds the move itself and every other piece of the type that can reach the square
+        int count = board.generateLegalMoves(turn, type, candidates);
+        int legal = 0;
+        boolean ambiguous = false, sameFile = false, sameRank = false;
+        for (int i = 0; i < count; i++) {
+            int candidate = candidates.get(i);
+            if (MoveList.to(candidate) != to) continue;
+            int candidateFrom = MoveList.from(candidate);
+            if (candidateFrom == from) {
+                Piece.Type candidatePromotion = MoveList.promotion(candidate);
+                if (candidatePromotion == promotion || (promotion == null && candidatePromotion == Piece.Type.QUEEN)) {
+                    legal = candidate;
+                }
+            } else {
+                ambiguous = true;
+                sameFile |= (candidateFrom & 7) == (from & 7);
+                sameRank |= (candidateFrom >>> 3) == (from >>> 3);
+            }
+        }
+        if (legal == 0) {
+            throw new IllegalArgumentException("Illegal move " + MoveList.toString(move));
+        }
+
+        if (MoveList.isCastling(legal)) {
+            out.append(to > from ? "O-O" : "O-O-O");
+        } else if (type == Piece.Type.PAWN) {
+            if (MoveList.isCapture(legal)) {
+                out.append((char) ('a' + (from & 7))).append('x');
+            }
+            appendSquare(to, out);
+            if (MoveList.isPromotion(legal)) {
+                out.append('=').append(MoveList.promotion(legal).getNotation());
+            }
+        } else {
+            out.append(type.getNotation());
+            if (ambiguous) {
+                // File if it tells the pieces apart, else rank, else both
+                if (!sameFile) {
+                    out.append((char) ('a' + (from & 7)));
+                } else if (!sameRank) {
+                    out.append((char) ('1' + (from >>> 3)));
+                } else {
+                    appendSquare(from, out);
+                }
+            }
+            if (MoveList.isCapture(legal)) {
+                out.append('x');
+            }
+            appendSquare(to, out);
+        }
+
+        GameStatus after = board.getStatusAfter(legal);
+        if (after.isInCheck()) {
+            out.append(after.isCheckmate() ? '#' : '+');
+        }
+    }
+
+    /**
+     * Finds the legal move that a SAN string describes, or returns 0 if no legal
+     * move or more than one matches. Check, mate and annotation suffixes
+     * ("+", "#", "!", "?") are ignored, castling may be written with zeros, the
+     * capture mark is optional for pieces and a pawn move to the last rank
+     * without a promotion piece is taken as a queen promotion.
+     */
+    public int parseSan(GameBoard board, CharSequence san) {
+        int start = 0;
+        int end = san.length();
+        while (end > start && isSuffix(san.charAt(end - 1))) end--;
+        if (end == start) return 0;
+        Side turn = board.getCurrentTurn();
+
+        // Castling: O-O / O-O-O
+        char first = san.charAt(start);
+        if (first == 'O' || first == '0') {
+            int length = end - start;
+            if (length != 3 && length != 5) return 0;
+            for (int i = start + 1; i < end; i += 2) {
+                if (san.charAt(i) != '-' || san.charAt(i + 1) != first) return 0;
+            }
+            int to = board.getKingSquare(turn) + (length == 3 ? 2 : -2);
+            int count = board.generateLegalMoves(turn, Piece.Type.KING, candidates);
+            for (int i = 0; i < count; i++) {
+                int move = candidates.get(i);
+                if (MoveList.isCastling(move) && MoveList.to(move) == to) return move;
+            }
+            return 0;
+        }
+
+        Piece.Type type = Piece.Type.PAWN;
+        int i = start;
+        if (first == 'K' || first == 'Q' || first == 'R' || first == 'B' || first == 'N') {
+            type = Piece.Type.fromNotation(first);
+            i++;
+        }
+
+        Piece.Type promotion = null;
+        if (type == Piece.Type.PAWN && end - i >= 3) {
+            promotion = promotionType(san.charAt(end - 1));
+            if (promotion != null) {
+                end -= san.charAt(end - 2) == '=' ? 2 : 1;
+            }
+        }
+
+        if (end - i < 2) return 0;
+        int toCol = san.charAt(end - 2) - 'a';
+        int toRow = san.charAt(end - 1) - '1';
+        if (toCol < 0 || toCol > 7 || toRow < 0 || toRow > 7) return 0;
+        int to = toRow * 8 + toCol;
+        end -= 2;
+
+        int fromCol = -1, fromRow = -1;
+        if (type == Piece.Type.PAWN) {
+            // A pawn capture names its file and the capture mark ("exd5"), a push nothing
+            if (end > i) {
+                char c = san.charAt(i);
+                char mark = san.charAt(i + 1);
+                if (end - i != 2 || c < 'a' || c > 'h' || (mark != 'x' && mark != ':')) return 0;
+                fromCol = c - 'a';
+            }
+        } else {
+            // Disambiguation by file and/or rank
+            for (; i < end; i++) {
+                char c = san.charAt(i);
+                if (c >= 'a' && c <= 'h') fromCol = c - 'a';
+                else if (c >= '1' && c <= '8') fromRow = c - '1';
+                else if (c != 'x' && c != ':' && c != '-') return 0;
+            }
+        }
+
+        int count = board.generateLegalMoves(turn, type, candidates);
+        int match = 0;
+        for (int m = 0; m < count; m++) {
+            int move = candidates.get(m);
+            if (MoveList.to(move) != to) continue;
+            int from = MoveList.from(move);
+            if (fromCol >= 0 && (from & 7) != fromCol) continue;
+            if (fromRow >= 0 && (from >>> 3) != fromRow) continue;
+            if (type == Piece.Type.PAWN && MoveList.isCapture(move) != (fromCol >= 0)) continue;
+            Piece.Type movePromotion = MoveList.promotion(move);
+            Piece.Type wanted = promotion == null && movePromotion != null ? Piece.Type.QUEEN : promotion;
+            if (movePromotion != wanted) continue;
+            if (match != 0) return 0;
+            match = move;
+        }
+        return match;
+    }
+
+    /**
+     * Formats a move in UCI notation, e.g. e2e4 or e7e8q ("0000" for no move)
+     */
+    public static String toUci(int move) {
+        StringBuilder uci = new StringBuilder(5);
+        appendUci(move, uci);
+        return uci.toString();
+    }
+
+    public static void appendUci(int move, StringBuilder out) {
+        if (move == 0) {
+            out.append("0000");
+            return;
+        }
+        appendSquare(MoveList.from(move), out);
+        appendSquare(MoveList.to(move), out);
+        Piece.Type promotion = MoveList.promotion(move);
+        if (promotion != null) {
+            out.append(Character.toLowerCase(promotion.getNotation()));
+        }
+    }
+
+    /**
+     * Finds the legal move that a UCI string describes, or returns 0 if it is
+     * malformed or not legal in the position. Castling is written as the king's
+     * move (e1g1).
+     */
+    public int parseUci(GameBoard board, CharSequence uci) {
+        int length = uci.length();
+        if (length != 4 && length != 5) return 0;
+        int from = parseSquare(uci, 0);
+        int to = parseSquare(uci, 2);
+        if (from < 0 || to < 0) return 0;
+        Piece.Type promotion = null;
+        if (length == 5) {
+            promotion = promotionType(Character.toUpperCase(uci.charAt(4)));
+            if (promotion == null) return 0;
+        }
+        Piece piece = board.getPiece(from >>> 3, from & 7);
+        if (piece == null || piece.getColor() != board.getCurrentTurn()) return 0;
+
+        int count = board.generateLegalMoves(from >>> 3, from & 7, candidates);
+        for (int i = 0; i < count; i++) {
+            int move = candidates.get(i);
+            if (MoveList.to(move) == to && MoveList.promotion(move) == promotion) return move;
+        }
+        return 0;
+    }
+
+    private static int parseSquare(CharSequence text, int index) {
+        int col = text.charAt(index) - 'a';
+        int row = text.charAt(index + 1) - '1';
+        if (col < 0 || col > 7 || row < 0 || row > 7) return -1;
+        return row * 8 + col;
+    }
+
+    private static void appendSquare(int square, StringBuilder out) {
+        out.append((char) ('a' + (square & 7))).append((char) ('1' + (square >>> 3)));
+    }
+
+    private static boolean isSuffix(char c) {
+        return c == '+' || c == '#' || c == '!' || c == '?';
+    }
+
+    private static Piece.Type promotionType(char letter) {
+        switch (letter) {
+            case 'Q': return Piece.Type.QUEEN;
+            case 'R': return Piece.Type.ROOK;
+            case 'B': return Piece.Type.BISHOP;
+            case 'N': return Piece.Type.KNIGHT;
+            default: return null;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Multi-threaded "Lazy SMP" search.
+ * Every worker thread runs its own Search on its own copy of the position and
+ * all of them share one lock-free TranspositionTable, so results found by one
+ * thread cut off work in the others. Helpers start at a different depth and
+ * use a different root move order to spread out over the tree.
+ *
+ * Worker 0 is the main thread: it owns the time limit and the iteration
+ * reports, and when it finishes all helpers are stopped.
+ *
+ * Usage:
+ *   java ParallelSearch [--threads n] [--depth n] [--time ms] [--nodes n] [--hash mb] [fen]
+ */
+public class ParallelSearch {
+
+    private final TranspositionTable table;
+    private final AtomicBoolean stopSignal = new AtomicBoolean();
+    private Search[] workers = new Search[0];
+    private ExecutorService executor;
+    private Consumer<SearchResult> listener;
+    private long[] lastThreadNodes = new long[0];
+
+    public ParallelSearch(TranspositionTable table, int threads) {
+        this.table = table;
+        setThreads(threads);
+    }
+
+    /**
+     * Changes the number of worker threads. Must not be called while searching.
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one search thread is required");
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        workers = new Search[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Search(table);
+            workers[i].setSharedStop(stopSignal);
+            workers[i].setHelperIndex(i);
+        }
+        executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "search-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lastThreadNodes = new long[threads];
+    }
+
+    public int getThreads() {
+        return workers.length;
+    }
+
+    /**
+     * Sets a callback that receives each iteration completed by the main worker,
+     * with the node count summed over all workers
+     */
+    public void setListener(Consumer<SearchResult> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Forgets the killers and history scores of all workers, so nothing learned
+     * in one game steers the move ordering of the next. Must not be called while
+     * searching.
+     */
+    public void newGame() {
+        for (Search worker : workers) {
+            worker.getMoveOrdering().clear();
+        }
+    }
+
+    /**
+     * Stops all workers as soon as possible. Safe to call from another thread.
+     */
+    public void stop() {
+        stopSignal.set(true);
+        for (Search worker : workers) {
+            worker.stop();
+        }
+    }
+
+    /**
+     * Searches the position with all workers and returns the main worker's result,
+     * with nodes and speed counted over all threads. The board is not modified.
+     */
+    public SearchResult search(GameBoard board, SearchLimits limits) {
+        stopSignal.set(false);
+        table.newSearch();
+        workers[0].setListener(listener == null ? null : result -> listener.accept(withTotalNodes(result)));
+
+        // Helpers share the node budget and run until the main worker is done
+        SearchLimits helperLimits = new SearchLimits()
+            .setDepth(limits.getDepth())
+            .setTimeMillis(limits.getTimeMillis())
+            .setNodes(limits.getNodes() == Long.MAX_VALUE ? Long.MAX_VALUE : limits.getNodes() / workers.length);
+        SearchLimits mainLimits = new SearchLimits()
+            .setDepth(limits.getDepth())
+            .setTimeMillis(limits.getTimeMillis())
+            .setNodes(helperLimits.getNodes());
+
+        List<Future<SearchResult>> futures = new ArrayList<>(workers.length);
+        for (int i = 0; i < workers.length; i++) {
+            Search worker = workers[i];
+            GameBoard copy = board.copy();
+            SearchLimits workerLimits = i == 0 ? mainLimits : helperLimits;
+            futures.add(executor.submit(() -> worker.search(copy, workerLimits)));
+        }
+
+        SearchResult mainResult;
+        try {
+            mainResult = futures.get(0).get();
+            stopSignal.set(true);
+            for (int i = 1; i < futures.size(); i++) {
+                futures.get(i).get();
+            }
+        } catch (InterruptedException e) {
+            stop();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Search interrupted", e);
+        } catch (ExecutionException e) {
+            stop();
+            throw new IllegalStateException("Search worker failed", e.getCause());
+        }
+
+        for (int i = 0; i < workers.length; i++) {
+            lastThreadNodes[i] = workers[i].getNodes();
+        }
+        return withTotalNodes(mainResult);
+    }
+
+    /**
+     * Nodes searched by each worker in the last search, indexed by worker
+     */
+    public long[] getThreadNodes() {
+        return lastThreadNodes.clone();
+    }
+
+    /**
+     * Shuts down the worker threads
+     */
+    public void shutdown() {
+        stop();
+        executor.shutdownNow();
+    }
+
+    private SearchResult withTotalNodes(SearchResult result) {
+        long total = 0;
+        for (Search worker : workers) {
+            total += worker.getNodes();
+        }
+        return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(),
+                                result.getPrincipalVariation(), total, result.getTimeMillis());
+    }
+
+    public static void main(String[] args) {
+        SearchLimits limits = new SearchLimits();
+        boolean limited = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int hashMegabytes = 64;
+        StringBuilder fen = new StringBuilder();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--depth":
+                    limits.setDepth(Integer.parseInt(args[++i]));
+                    limited = true;
+                    break;
+                case "--time":
+                    limits.setTimeMillis(Long.parseLong(args[++i]));
+                    limited = true;
+                    break;
+                case "--nodes":
+                    limits.setNodes(Long.parseLong(args[++i]));
+                    limited = true;
+                    break;
+                case "--hash":
+                    hashMegabytes = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    fen.append(args[i]).append(' ');
+                    break;
+            }
+        }
+        if (!limited) {
+            limits.setDepth(6);
+        }
+
+        GameBoard board = fen.length() > 0 ? new GameBoard(fen.toString()) : new GameBoard();
+        ParallelSearch search = new ParallelSearch(new TranspositionTable(hashMegabytes), threads);
+        search.setListener(result -> System.out.println(result));
+        SearchResult result = search.search(board, limits);
+        search.shutdown();
+
+        long[] threadNodes = search.getThreadNodes();
+        for (int i = 0; i < threadNodes.length; i++) {
+            System.out.println("thread " + i + " nodes " + threadNodes[i]);
+        }
+        System.out.println("bestmove " + (result.getBestMove() != 0 ? MoveList.toString(result.getBestMove()) : "(none)"));
+    }
+}
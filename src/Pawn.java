@@ -3,21 +3,21 @@ public class Pawn extends Board {
     private int column = 0;
     private static final char SYMBOL = 'P';
 
-    Pawn(String color, int column) {
+    Pawn(Side color, int column) {
         addPiece(column, color, row);
     }
 
     @Override
-    void addPiece(int pos, String color, int row) {
+    void addPiece(int pos, Side color, int row) {
         board[row][pos] = new Index(pos, color, SYMBOL);
         this.column = pos;
         this.row = row;
-        recordMove(color, new Move(Move.Type.ADD, pos, row, SYMBOL));
+        recordMove(color, Move.encode(Move.Type.ADD, pos, row, SYMBOL));
     }
 
     @Override
-    void movePiece(int pos, String color, int row) {
-        if(board[row][pos] != null && board[row][pos].colour.equals(color)){
+    void movePiece(int pos, Side color, int row) {
+        if(board[row][pos] != null && board[row][pos].colour == color){
             throw new IllegalArgumentException("Cannot capture your own piece");
         }
         
@@ -45,17 +45,17 @@ public class Pawn extends Board {
         if(moved){
             board[oldRow][oldCol] = null;
             board[this.row][this.column] = new Index(this.column, color, SYMBOL);
-            recordMove(color, new Move(Move.Type.MOVE, this.column, this.row, SYMBOL));
+            recordMove(color, Move.encode(Move.Type.MOVE, this.column, this.row, SYMBOL));
         } else {
             throw new IllegalArgumentException("Invalid pawn move");
         }
     }
 
     @Override
-    void removePiece(int pos, String color, int row) {
+    void removePiece(int pos, Side color, int row) {
         if (board[row][pos] != null) {
             board[row][pos] = null;
-            recordMove(color, new Move(Move.Type.REMOVE, pos, row, SYMBOL));
+            recordMove(color, Move.encode(Move.Type.REMOVE, pos, row, SYMBOL));
         }
     }
 }
@@ -0,0 +1,288 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft (performance test) for GameBoard's move generator.
+ * Counts the leaf nodes of the legal move tree to a fixed depth, which both
+ * measures generator speed and, compared against published node counts,
+ * checks that every rule (castling, en passant, promotion, pins) is right.
+ *
+ * With more than one thread the tree is split into ForkJoin tasks at the
+ * root (and optionally the second ply); every task works on its own copy
+ * of the board, so the totals match the serial count exactly.
+ *
+ * Usage:
+ *   java Perft [options] <depth> [fen]    per-root-move "divide" counts for one position
+ *   java Perft [options] --suite [depth]  run the reference positions up to the given depth
+ *
+ * Options:
+ *   --threads <n>  worker threads (default 1, 0 = all available cores)
+ *   --split <n>    plies split into parallel tasks, 1 or 2 (default 1)
+ */
+public class Perft {
+
+    private static final String START_FEN = GameBoard.START_FEN;
+
+    /**
+     * Standard reference positions with their known node counts for depth 1, 2, 3...
+     */
+    private static final String[] SUITE_NAMES = {
+        "Initial position", "Kiwipete", "Position 3", "Position 4", "Position 5"
+    };
+    private static final String[] SUITE_FENS = {
+        START_FEN,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+        "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8"
+    };
+    private static final long[][] SUITE_COUNTS = {
+        {20, 400, 8902, 197281, 4865609, 119060324L},
+        {48, 2039, 97862, 4085603, 193690690L},
+        {14, 191, 2812, 43238, 674624, 11030083L},
+        {6, 264, 9467, 422333, 15833292L},
+        {44, 1486, 62379, 2103487, 89941194L}
+    };
+
+    private static final int DEFAULT_SUITE_DEPTH = 4;
+
+    /**
+     * Counts the leaf nodes of the legal move tree below the current position.
+     * Depth 0 counts the position itself.
+     */
+    public static long perft(GameBoard board, int depth) {
+        checkDepth(depth);
+        if (depth == 0) return 1;
+        return perft(board, depth, newBuffers(depth));
+    }
+
+    /**
+     * Counts perft nodes on a ForkJoinPool with the given number of threads,
+     * splitting the first splitPlies plies of the tree into separate tasks.
+     * The board itself is left untouched.
+     */
+    public static long parallelPerft(GameBoard board, int depth, int threads, int splitPlies) {
+        checkDepth(depth);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.invoke(new PerftTask(board.copy(), depth, splitPlies));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static long perft(GameBoard board, int depth, MoveList[] buffers) {
+        MoveList moves = buffers[depth];
+        int count = board.generateLegalMoves(board.getCurrentTurn(), moves);
+        if (depth == 1) return count;
+
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves.get(i));
+            nodes += perft(board, depth - 1, buffers);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Runs perft and prints the node count below each root move, followed by the total.
+     * With more than one thread the root moves are counted in parallel.
+     */
+    public static long divide(GameBoard board, int depth, int threads, int splitPlies, PrintStream out) {
+        checkDepth(depth);
+        if (depth == 0) {
+            out.println("Nodes: 1");
+            return 1;
+        }
+        MoveList rootMoves = new MoveList();
+        int count = board.generateLegalMoves(board.getCurrentTurn(), rootMoves);
+        long[] counts = new long[count];
+
+        long start = System.nanoTime();
+        if (threads > 1) {
+            List<PerftTask> tasks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                GameBoard child = board.copy();
+                child.makeMove(rootMoves.get(i));
+                tasks.add(new PerftTask(child, depth - 1, splitPlies - 1));
+            }
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                for (PerftTask task : tasks) {
+                    pool.execute(task);
+                }
+                for (int i = 0; i < count; i++) {
+                    counts[i] = tasks.get(i).join();
+                }
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                board.makeMove(rootMoves.get(i));
+                counts[i] = perft(board, depth - 1);
+                board.unmakeMove();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            out.println(MoveList.toString(rootMoves.get(i)) + ": " + counts[i]);
+            total += counts[i];
+        }
+        out.println();
+        out.println("Nodes: " + total);
+        printSpeed(total, elapsed, out);
+        return total;
+    }
+
+    /**
+     * Runs every reference position up to maxDepth.
+     * Returns true if all node counts matched.
+     */
+    public static boolean runSuite(int maxDepth, int threads, int splitPlies, PrintStream out) {
+        boolean allPassed = true;
+        long totalNodes = 0;
+        long totalTime = 0;
+
+        for (int i = 0; i < SUITE_FENS.length; i++) {
+            out.println(SUITE_NAMES[i] + ": " + SUITE_FENS[i]);
+            int depthLimit = Math.min(maxDepth, SUITE_COUNTS[i].length);
+            for (int depth = 1; depth <= depthLimit; depth++) {
+                GameBoard board = new GameBoard(SUITE_FENS[i]);
+                long start = System.nanoTime();
+                long nodes = threads > 1 ? parallelPerft(board, depth, threads, splitPlies) : perft(board, depth);
+                long elapsed = System.nanoTime() - start;
+                totalNodes += nodes;
+                totalTime += elapsed;
+
+                long expected = SUITE_COUNTS[i][depth - 1];
+                boolean passed = nodes == expected;
+                allPassed &= passed;
+                out.printf("  depth %d: %,d nodes %s (%.3f s)%n", depth, nodes,
+                           passed ? "OK" : "FAILED, expected " + expected, elapsed / 1e9);
+            }
+        }
+
+        out.println();
+        out.println(allPassed ? "All positions passed" : "Some positions FAILED");
+        printSpeed(totalNodes, totalTime, out);
+        return allPassed;
+    }
+
+    private static void checkDepth(int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Depth must not be negative: " + depth);
+        }
+    }
+
+    private static MoveList[] newBuffers(int depth) {
+        MoveList[] buffers = new MoveList[depth + 1];
+        for (int i = 0; i <= depth; i++) {
+            buffers[i] = new MoveList();
+        }
+        return buffers;
+    }
+
+    private static void printSpeed(long nodes, long nanos, PrintStream out) {
+        double seconds = nanos / 1e9;
+        out.printf("Time: %.3f s, %,.0f nodes/s%n", seconds, seconds > 0 ? nodes / seconds : 0.0);
+    }
+
+    public static void main(String[] args) {
+        int threads = 1;
+        int splitPlies = 1;
+        int arg = 0;
+        while (arg < args.length && (args[arg].equals("--threads") || args[arg].equals("--split"))) {
+            if (arg + 1 >= args.length) {
+                exitWithUsage();
+            }
+            int value = Integer.parseInt(args[arg + 1]);
+            if (args[arg].equals("--threads")) {
+                threads = value > 0 ? value : Runtime.getRuntime().availableProcessors();
+            } else {
+                splitPlies = Math.max(1, Math.min(2, value));
+            }
+            arg += 2;
+        }
+
+        if (arg >= args.length) {
+            exitWithUsage();
+        }
+
+        if (args[arg].equals("--suite")) {
+            int depth = arg + 1 < args.length ? Integer.parseInt(args[arg + 1]) : DEFAULT_SUITE_DEPTH;
+            if (depth < 0) {
+                exitWithUsage();
+            }
+            if (!runSuite(depth, threads, splitPlies, System.out)) {
+                System.exit(1);
+            }
+            return;
+        }
+
+        int depth = Integer.parseInt(args[arg]);
+        if (depth < 0) {
+            exitWithUsage();
+        }
+        StringBuilder fen = new StringBuilder();
+        for (int i = arg + 1; i < args.length; i++) {
+            fen.append(args[i]).append(' ');
+        }
+        GameBoard board = fen.length() > 0 ? new GameBoard(fen.toString()) : new GameBoard(START_FEN);
+        divide(board, depth, threads, splitPlies, System.out);
+    }
+
+    /**
+     * Prints the usage and ends the process with a failure status, for invalid arguments
+     */
+    private static void exitWithUsage() {
+        System.out.println("Usage: java Perft [--threads n] [--split 1|2] <depth> [fen]");
+        System.out.println("       java Perft [--threads n] [--split 1|2] --suite [depth]");
+        System.exit(1);
+    }
+
+    /**
+     * Counts the nodes below one position, forking a subtask per move
+     * while there are plies left to split
+     */
+    private static class PerftTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient GameBoard board;
+        private final int depth;
+        private final int splitPlies;
+
+        PerftTask(GameBoard board, int depth, int splitPlies) {
+            this.board = board;
+            this.depth = depth;
+            this.splitPlies = splitPlies;
+        }
+
+        @Override
+        protected Long compute() {
+            if (splitPlies <= 0 || depth <= 1) {
+                return perft(board, depth);
+            }
+
+            MoveList moves = new MoveList();
+            int count = board.generateLegalMoves(board.getCurrentTurn(), moves);
+            List<PerftTask> tasks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                GameBoard child = board.copy();
+                child.makeMove(moves.get(i));
+                tasks.add(new PerftTask(child, depth - 1, splitPlies - 1));
+            }
+            long nodes = 0;
+            for (PerftTask task : invokeAll(tasks)) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * One game read by PgnReader: its tag pairs, the moves replayed on a GameBoard
+ * and the result. The reader fills the same instance for every game, so a game
+ * is only valid during the callback it is handed to; copy what must be kept.
+ */
+public final class PgnGame {
+
+    public static final String WHITE_WINS = "1-0";
+    public static final String BLACK_WINS = "0-1";
+    public static final String DRAW = "1/2-1/2";
+    public static final String UNKNOWN_RESULT = "*";
+
+    // Tag names and values as ISO-8859-1 bytes, one after another in tagBytes;
+    // tag i spans tagBytes[tagStarts[i] .. tagStarts[i + 1]) with the name first
+    private byte[] tagBytes = new byte[1024];
+    private int[] tagStarts = new int[33];
+    private int[] nameLengths = new int[32];
+    private int tagCount;
+
+    private int[] moves = new int[256];
+    private int moveCount;
+
+    private final GameBoard board = new GameBoard();
+    private String result = UNKNOWN_RESULT;
+    private String error;
+    private long number;
+
+    /**
+     * Starts a new, empty game
+     */
+    void reset(long number) {
+        this.number = number;
+        tagCount = 0;
+        tagStarts[0] = 0;
+        moveCount = 0;
+        result = UNKNOWN_RESULT;
+        error = null;
+    }
+
+    void startTag() {
+        if (tagCount + 1 == tagStarts.length) {
+            tagStarts = Arrays.copyOf(tagStarts, tagStarts.length * 2);
+            nameLengths = Arrays.copyOf(nameLengths, nameLengths.length * 2);
+        }
+        tagStarts[tagCount + 1] = tagStarts[tagCount];
+    }
+
+    void appendTagByte(int b) {
+        int end = tagStarts[tagCount + 1];
+        if (end == tagBytes.length) {
+            tagBytes = Arrays.copyOf(tagBytes, tagBytes.length * 2);
+        }
+        tagBytes[end] = (byte) b;
+        tagStarts[tagCount + 1] = end + 1;
+    }
+
+    /**
+     * Ends the name of the tag being read; the bytes appended from now on are its value
+     */
+    void endTagName() {
+        nameLengths[tagCount] = tagStarts[tagCount + 1] - tagStarts[tagCount];
+    }
+
+    void endTag() {
+        tagCount++;
+    }
+
+    void addMove(int move) {
+        if (moveCount == moves.length) {
+            moves = Arrays.copyOf(moves, moveCount * 2);
+        }
+        moves[moveCount++] = move;
+    }
+
+    void setResult(String result) {
+        this.result = result;
+    }
+
+    void setError(String error) {
+        if (this.error == null) {
+            this.error = error;
+        }
+    }
+
+    /**
+     * Position of the game in the archive, counting from 1
+     */
+    public long getNumber() {
+        return number;
+    }
+
+    public int getTagCount() {
+        return tagCount;
+    }
+
+    public String getTagName(int index) {
+        return new String(tagBytes, tagStarts[index], nameLengths[index], StandardCharsets.ISO_8859_1);
+    }
+
+    public String getTagValue(int index) {
+        int start = tagStarts[index] + nameLengths[index];
+        return new String(tagBytes, start, tagStarts[index + 1] - start, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Returns the value of the named tag, or null if the game does not have it
+     */
+    public String getTag(String name) {
+        int index = indexOfTag(name);
+        return index < 0 ? null : getTagValue(index);
+    }
+
+    /**
+     * Returns the index of the named tag, or -1; compares bytes without making Strings
+     */
+    public int indexOfTag(String name) {
+        for (int i = 0; i < tagCount; i++) {
+            if (nameLengths[i] != name.length()) continue;
+            int start = tagStarts[i];
+            int j = 0;
+            while (j < nameLengths[i] && (tagBytes[start + j] & 0xFF) == name.charAt(j)) j++;
+            if (j == nameLengths[i]) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Number of moves replayed; a game with an error stops at the move before it
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Returns a replayed move in MoveList encoding
+     */
+    public int getMove(int index) {
+        if (index < 0 || index >= moveCount) {
+            throw new IllegalArgumentException("Move " + index + " outside of " + moveCount + " moves");
+        }
+        return moves[index];
+    }
+
+    /**
+     * The board after the last replayed move
+     */
+    public GameBoard getBoard() {
+        return board;
+    }
+
+    /**
+     * The game termination marker: WHITE_WINS, BLACK_WINS, DRAW or UNKNOWN_RESULT
+     */
+    public String getResult() {
+        return result;
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+
+    /**
+     * Describes why the game could not be replayed, or returns null if it was
+     */
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,354 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Parallel PGN import.
+ * One reader thread streams the archive and cuts it into chunks of whole games,
+ * breaking only where a tag section follows movetext. A pool of workers replays
+ * the chunks, each worker with its own PgnReader and GameBoard, and turns every
+ * game into a result with a caller-supplied function. The results are passed to
+ * a sink on the calling thread, in archive order or as soon as they are ready.
+ *
+ * At most maxChunksInFlight chunks are read ahead of the sink. When the sink or
+ * the workers fall behind, the reader waits, so memory stays bounded however
+ * big the archive is.
+ *
+ * Game numbers assume that every game starts with its tag pairs, as the PGN
+ * standard requires. A game without tags is still replayed but shares the
+ * number of the game before it.
+ *
+ * Usage:
+ *   java PgnPipeline [--threads n] [--unordered] <file.pgn>
+ */
+public class PgnPipeline {
+
+    public static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+
+    private final int threads;
+    private final int chunkSize;
+    private final int maxChunksInFlight;
+    private boolean ordered = true;
+
+    private final LongAdder games = new LongAdder();
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder invalidGames = new LongAdder();
+    private long bytesRead;
+
+    public PgnPipeline(int threads) {
+        this(threads, DEFAULT_CHUNK_SIZE, threads * 4);
+    }
+
+    public PgnPipeline(int threads, int chunkSize, int maxChunksInFlight) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one worker thread is required");
+        }
+        if (chunkSize < 1 || maxChunksInFlight < 1) {
+            throw new IllegalArgumentException("Chunk size and chunks in flight must be positive");
+        }
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+        this.maxChunksInFlight = maxChunksInFlight;
+    }
+
+    /**
+     * Chooses between results in archive order (the default) and results in
+     * the order the workers finish them, which keeps all workers busy even
+     * when one chunk is slow
+     */
+    public PgnPipeline setOrdered(boolean ordered) {
+        this.ordered = ordered;
+        return this;
+    }
+
+    /**
+     * A chunk of whole games cut out of the archive
+     */
+    private static final class Chunk {
+        final long sequence;
+        final byte[] data;
+        final long firstGame;
+
+        Chunk(long sequence, byte[] data, long firstGame) {
+            this.sequence = sequence;
+            this.data = data;
+            this.firstGame = firstGame;
+        }
+    }
+
+    /**
+     * The results of one chunk, a failure, or (with last set) the end of the input
+     */
+    private static final class Batch<R> {
+        final long sequence;
+        final List<R> results;
+        final Throwable failure;
+        final boolean last;
+
+        Batch(long sequence, List<R> results, Throwable failure, boolean last) {
+            this.sequence = sequence;
+            this.results = results;
+            this.failure = failure;
+            this.last = last;
+        }
+    }
+
+    /**
+     * Replays every game read from the channel. The worker function runs on the
+     * pool threads, once per game, while the game is still valid (PgnGame and its
+     * board are reused afterwards); a null result is dropped. The sink runs on the
+     * calling thread only. Returns the number of games read.
+     */
+    public <R> long run(ReadableByteChannel channel, Function<PgnGame, R> worker, Consumer<R> sink) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "pgn-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ThreadLocal<PgnReader> readers = ThreadLocal.withInitial(PgnReader::new);
+        Semaphore inFlight = new Semaphore(maxChunksInFlight);
+        BlockingQueue<Batch<R>> completed = new LinkedBlockingQueue<>();
+        long gamesBefore = games.sum();
+
+        Thread reader = new Thread(() -> {
+            long chunks = 0;
+            try {
+                chunks = split(channel, chunk -> {
+                    inFlight.acquireUninterruptibly();
+                    executor.execute(() -> completed.add(replay(chunk, readers.get(), worker)));
+                });
+            } catch (Throwable e) {
+                completed.add(new Batch<>(-1, null, e, false));
+            }
+            completed.add(new Batch<>(chunks, null, null, true));
+        }, "pgn-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        try {
+            Map<Long, Batch<R>> waiting = new HashMap<>();
+            long nextSequence = 0;
+            long totalChunks = -1;
+            while (totalChunks < 0 || nextSequence < totalChunks) {
+                Batch<R> batch = completed.take();
+                if (batch.failure != null) {
+                    if (batch.failure instanceof IOException) throw (IOException) batch.failure;
+                    throw new IllegalStateException("PGN import failed", batch.failure);
+                }
+                if (batch.last) {
+                    totalChunks = batch.sequence;
+                    continue;
+                }
+                if (!ordered) {
+                    emit(batch, sink, inFlight);
+                    nextSequence++;
+                    continue;
+                }
+                waiting.put(batch.sequence, batch);
+                while ((batch = waiting.remove(nextSequence)) != null) {
+                    emit(batch, sink, inFlight);
+                    nextSequence++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("PGN import interrupted", e);
+        } finally {
+            executor.shutdownNow();
+            // Unblock a reader still waiting for room after a failure
+            inFlight.release(maxChunksInFlight);
+        }
+        return games.sum() - gamesBefore;
+    }
+
+    private static <R> void emit(Batch<R> batch, Consumer<R> sink, Semaphore inFlight) {
+        for (R result : batch.results) {
+            sink.accept(result);
+        }
+        inFlight.release();
+    }
+
+    private <R> Batch<R> replay(Chunk chunk, PgnReader reader, Function<PgnGame, R> worker) {
+        try {
+            long gamesBefore = reader.getGamesRead();
+            long movesBefore = reader.getMovesRead();
+            long invalidBefore = reader.getInvalidGames();
+            List<R> results = new ArrayList<>();
+            reader.reset(chunk.data, 0, chunk.data.length, chunk.firstGame);
+            reader.read(game -> {
+                R result = worker.apply(game);
+                if (result != null) {
+                    results.add(result);
+                }
+            });
+            games.add(reader.getGamesRead() - gamesBefore);
+            moves.add(reader.getMovesRead() - movesBefore);
+            invalidGames.add(reader.getInvalidGames() - invalidBefore);
+            return new Batch<>(chunk.sequence, results, null, false);
+        } catch (Throwable e) {
+            return new Batch<>(chunk.sequence, null, e, false);
+        }
+    }
+
+    /**
+     * Reads the channel and passes on chunks of at least chunkSize bytes (except
+     * the last) that end just before a game's tag section. Returns the number of
+     * chunks produced.
+     */
+    private long split(ReadableByteChannel channel, Consumer<Chunk> chunks) throws IOException {
+        byte[] buffer = new byte[Math.max(2 * chunkSize, 1 << 16)];
+        int start = 0;    // start of the bytes not yet passed on
+        int end = 0;      // end of the bytes read
+        int scan = 0;     // next byte to look at
+
+        boolean lineStart = true;
+        boolean tagLine = false;
+        boolean lineComment = false;
+        boolean braceComment = false;
+        boolean movetextSeen = false;
+        boolean gameOpen = false;
+        long sequence = 0;
+        long firstGame = 1;
+        int chunkGames = 0;
+
+        while (true) {
+            if (scan == end) {
+                if (start > 0) {
+                    System.arraycopy(buffer, start, buffer, 0, end - start);
+                    end -= start;
+                    scan -= start;
+                    start = 0;
+                }
+                if (end == buffer.length) {
+                    // A single game longer than the buffer
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                int n = channel.read(ByteBuffer.wrap(buffer, end, buffer.length - end));
+                if (n < 0) break;
+                end += n;
+                bytesRead += n;
+                continue;
+            }
+
+            int c = buffer[scan];
+            if (c == '\n') {
+                lineStart = true;
+                tagLine = false;
+                lineComment = false;
+            } else if (braceComment) {
+                if (c == '}') braceComment = false;
+            } else if (lineStart && c != ' ' && c != '\t' && c != '\r') {
+                lineStart = false;
+                if (c == '[') {
+                    tagLine = true;
+                    if (movetextSeen) {
+                        // A new game starts here: cut if enough bytes have piled up
+                        movetextSeen = false;
+                        if (scan - start >= chunkSize) {
+                            chunks.accept(new Chunk(sequence++, Arrays.copyOfRange(buffer, start, scan), firstGame));
+                            firstGame += chunkGames;
+                            chunkGames = 0;
+                            start = scan;
+                        }
+                        chunkGames++;
+                    } else if (!gameOpen) {
+                        gameOpen = true;
+                        chunkGames++;
+                    }
+                } else if (c != '%') {
+                    if (!gameOpen) {
+                        gameOpen = true;
+                        chunkGames++;
+                    }
+                    movetextSeen = true;
+                    if (c == '{') braceComment = true;
+                    else if (c == ';') lineComment = true;
+                }
+            } else if (!tagLine && !lineComment) {
+                if (c == '{') braceComment = true;
+                else if (c == ';') lineComment = true;
+            }
+            scan++;
+        }
+
+        if (chunkGames > 0) {
+            chunks.accept(new Chunk(sequence++, Arrays.copyOfRange(buffer, start, end), firstGame));
+        }
+        return sequence;
+    }
+
+    public long getGamesRead() {
+        return games.sum();
+    }
+
+    public long getMovesRead() {
+        return moves.sum();
+    }
+
+    public long getInvalidGames() {
+        return invalidGames.sum();
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Replays every game of a PGN file on several threads and reports the throughput
+     */
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean ordered = true;
+        int arg = 0;
+        while (arg < args.length && args[arg].startsWith("--")) {
+            if (args[arg].equals("--threads") && arg + 1 < args.length) {
+                int value = Integer.parseInt(args[arg + 1]);
+                threads = value <= 0 ? Runtime.getRuntime().availableProcessors() : value;
+                arg += 2;
+            } else if (args[arg].equals("--unordered")) {
+                ordered = false;
+                arg++;
+            } else {
+                break;
+            }
+        }
+        if (arg >= args.length) {
+            System.out.println("Usage: java PgnPipeline [--threads n] [--unordered] <file.pgn>");
+            return;
+        }
+
+        PgnPipeline pipeline = new PgnPipeline(threads).setOrdered(ordered);
+        int[] errorsShown = {0};
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(Paths.get(args[arg]), StandardOpenOption.READ)) {
+            pipeline.run(channel,
+                game -> game.isValid() ? null : "Game " + game.getNumber() + ": " + game.getError(),
+                error -> {
+                    if (errorsShown[0]++ < 10) System.out.println(error);
+                });
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Threads: %d (%s)%n", threads, ordered ? "ordered" : "unordered");
+        System.out.printf("Games: %,d (%,d invalid)%n", pipeline.getGamesRead(), pipeline.getInvalidGames());
+        System.out.printf("Moves: %,d%n", pipeline.getMovesRead());
+        System.out.printf("Time: %.3f s, %,.0f games/s, %,.0f moves/s, %.1f MB/s%n",
+                seconds, pipeline.getGamesRead() / seconds, pipeline.getMovesRead() / seconds,
+                pipeline.getBytesRead() / seconds / 1e6);
+    }
+}
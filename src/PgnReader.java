@@ -0,0 +1,379 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Streaming reader for PGN (Portable Game Notation) archives.
+ *
+ * The input is read from a channel through one fixed-size buffer and scanned a
+ * byte at a time, so memory use does not depend on the size of the archive.
+ * Tag pairs are kept as bytes and SAN moves are collected in a small reusable
+ * token buffer; no String is made for a token. Every move is resolved with
+ * Notation.parseSan against the legal moves of a GameBoard and played on it,
+ * and each finished game is handed to a callback. The game object and its
+ * board are reused for the next game, so nothing grows with the number of
+ * games read.
+ *
+ * A reader can also parse games held in a byte array (see reset), which is how
+ * PgnPipeline's workers replay the chunks its reader thread cuts out of a file.
+ *
+ * Comments, variations, NAGs and escape lines are skipped. A move that is not
+ * legal (or is ambiguous) marks the game as invalid; the rest of its movetext
+ * is skipped and the game is still passed to the callback.
+ */
+public class PgnReader {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    // Longest SAN token accepted, with room for suffixes like "+!?"
+    private static final int MAX_TOKEN_LENGTH = 32;
+
+    // The channel is null when reading from a byte array given to reset
+    private ReadableByteChannel channel;
+    private byte[] buffer;
+    private ByteBuffer byteBuffer;
+    private int position;
+    private int limit;
+
+    private final byte[] token = new byte[MAX_TOKEN_LENGTH];
+    private int tokenLength;
+    private boolean tokenTooLong;
+
+    private final AsciiSequence tokenText = new AsciiSequence();
+
+    private final PgnGame game = new PgnGame();
+    private final Notation notation = new Notation();
+    private boolean gameStarted;
+    private boolean boardReady;
+    private long nextGameNumber = 1;
+
+    private long bytesRead;
+    private long gamesRead;
+    private long movesRead;
+    private long invalidGames;
+
+    /**
+     * Creates a reader over a blocking channel, such as a FileChannel
+     */
+    public PgnReader(ReadableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    public PgnReader(ReadableByteChannel channel, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        this.channel = channel;
+        this.buffer = new byte[bufferSize];
+        this.byteBuffer = ByteBuffer.wrap(buffer);
+    }
+
+    /**
+     * Creates a reader without input; call reset to give it games to read
+     */
+    public PgnReader() {
+        this.buffer = new byte[0];
+    }
+
+    /**
+     * Reads the next games from a range of a byte array instead of the channel.
+     * The bytes are read in place, not copied. Games are numbered from the
+     * given number on. The counters keep adding up across resets.
+     */
+    public void reset(byte[] data, int offset, int length, long firstGameNumber) {
+        if (offset < 0 || length < 0 || offset + length > data.length) {
+            throw new IllegalArgumentException("Range " + offset + "+" + length + " outside of " + data.length + " bytes");
+        }
+        channel = null;
+        buffer = data;
+        byteBuffer = null;
+        position = offset;
+        limit = offset + length;
+        bytesRead += length;
+        nextGameNumber = firstGameNumber;
+        gameStarted = false;
+        boardReady = false;
+    }
+
+    /**
+     * Reads games until the end of the input, passing each one to the handler
+     * as soon as it is complete. Returns the number of games read.
+     */
+    public long read(Consumer<PgnGame> handler) throws IOException {
+        long before = gamesRead;
+        int c;
+        while ((c = next()) >= 0) {
+            switch (c) {
+                case ' ': case '\t': case '\r': case '\n':
+                    break;
+                case '[':
+                    // A tag after movetext starts a new game even if the last one had no result
+                    if (gameStarted && boardReady) {
+                        finishGame(handler);
+                    }
+                    startGame();
+                    readTag();
+                    break;
+                case '{':
+                    skipPast('}');
+                    break;
+                case ';':
+                case '%':
+                    skipPast('\n');
+                    break;
+                case '(':
+                    skipVariation();
+                    break;
+                case ')':
+                    break;
+                default:
+                    readToken(c);
+                    handleToken(handler);
+                    break;
+            }
+        }
+        if (gameStarted) {
+            finishGame(handler);
+        }
+        return gamesRead - before;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getGamesRead() {
+        return gamesRead;
+    }
+
+    public long getMovesRead() {
+        return movesRead;
+    }
+
+    /**
+     * Number of games with an illegal, ambiguous or unreadable move or setup
+     */
+    public long getInvalidGames() {
+        return invalidGames;
+    }
+
+    private int next() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return buffer[position++] & 0xFF;
+    }
+
+    /**
+     * Steps back over the byte just returned by next (it is still in the buffer)
+     */
+    private void unread() {
+        position--;
+    }
+
+    private boolean fill() throws IOException {
+        if (channel == null) return false;
+        byteBuffer.clear();
+        int n;
+        do {
+            n = channel.read(byteBuffer);
+        } while (n == 0);
+        if (n < 0) return false;
+        position = 0;
+        limit = n;
+        bytesRead += n;
+        return true;
+    }
+
+    private void skipPast(int end) throws IOException {
+        int c;
+        do {
+            c = next();
+        } while (c >= 0 && c != end);
+    }
+
+    /**
+     * Skips a variation, including nested ones and comments that contain parentheses
+     */
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        int c;
+        while (depth > 0 && (c = next()) >= 0) {
+            if (c == '(') depth++;
+            else if (c == ')') depth--;
+            else if (c == '{') skipPast('}');
+            else if (c == ';') skipPast('\n');
+        }
+    }
+
+    private void startGame() {
+        if (!gameStarted) {
+            game.reset(nextGameNumber++);
+            gameStarted = true;
+            boardReady = false;
+        }
+    }
+
+    private void finishGame(Consumer<PgnGame> handler) {
+        if (!boardReady) {
+            setUpBoard();
+        }
+        gamesRead++;
+        movesRead += game.getMoveCount();
+        if (!game.isValid()) {
+            invalidGames++;
+        }
+        gameStarted = false;
+        boardReady = false;
+        handler.accept(game);
+    }
+
+    /**
+     * Puts the board in the starting position of the game: the standard one,
+     * or the one given by a FEN tag
+     */
+    private void setUpBoard() {
+        boardReady = true;
+        int fen = game.indexOfTag("FEN");
+        if (fen < 0) {
+            game.getBoard().setPosition(GameBoard.START_FEN);
+            return;
+        }
+        try {
+            game.getBoard().setPosition(game.getTagValue(fen));
+        } catch (IllegalArgumentException e) {
+            game.getBoard().setPosition(GameBoard.START_FEN);
+            game.setError(e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a tag pair after its opening bracket: [Name "value"]
+     */
+    private void readTag() throws IOException {
+        game.startTag();
+        int c = next();
+        while (c == ' ' || c == '\t') c = next();
+        while (c >= 0 && c != ' ' && c != '\t' && c != '"' && c != ']' && c != '\n') {
+            game.appendTagByte(c);
+            c = next();
+        }
+        game.endTagName();
+        while (c == ' ' || c == '\t') c = next();
+        if (c != '"') {
+            // Malformed tag: drop it
+            if (c >= 0 && c != ']') skipPast(']');
+            return;
+        }
+        while ((c = next()) >= 0 && c != '"') {
+            if (c == '\\') {
+                c = next();
+                if (c < 0) break;
+            }
+            game.appendTagByte(c);
+        }
+        skipPast(']');
+        game.endTag();
+    }
+
+    private void readToken(int first) throws IOException {
+        tokenLength = 0;
+        tokenTooLong = false;
+        int c = first;
+        while (true) {
+            if (tokenLength < MAX_TOKEN_LENGTH) {
+                token[tokenLength++] = (byte) c;
+            } else {
+                tokenTooLong = true;
+            }
+            c = next();
+            if (c < 0) return;
+            if (c == ' ' || c == '\t' || c == '\r' || c == '\n') return;
+            if (c == '{' || c == '(' || c == ')' || c == ';' || c == '[') {
+                unread();
+                return;
+            }
+        }
+    }
+
+    private boolean tokenEquals(String text) {
+        if (tokenLength != text.length()) return false;
+        for (int i = 0; i < tokenLength; i++) {
+            if (token[i] != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private void handleToken(Consumer<PgnGame> handler) {
+        if (token[0] == '$') return; // Numeric annotation glyph
+
+        String result = null;
+        if (tokenEquals(PgnGame.WHITE_WINS)) result = PgnGame.WHITE_WINS;
+        else if (tokenEquals(PgnGame.BLACK_WINS)) result = PgnGame.BLACK_WINS;
+        else if (tokenEquals(PgnGame.DRAW)) result = PgnGame.DRAW;
+        else if (tokenEquals(PgnGame.UNKNOWN_RESULT)) result = PgnGame.UNKNOWN_RESULT;
+        if (result != null) {
+            startGame();
+            game.setResult(result);
+            finishGame(handler);
+            return;
+        }
+
+        // Move numbers ("12.", "12...") may be glued to the move that follows ("1.e4");
+        // castling written with zeros ("0-0") is not a move number
+        int start = 0;
+        boolean castlingWithZeros = tokenLength >= 3 && token[0] == '0' && token[1] == '-';
+        if (!castlingWithZeros) {
+            while (start < tokenLength && token[start] >= '0' && token[start] <= '9') start++;
+            while (start < tokenLength && token[start] == '.') start++;
+        }
+        if (start == tokenLength) return;
+
+        startGame();
+        if (!boardReady) {
+            setUpBoard();
+        }
+        if (!game.isValid()) return;
+
+        int move = tokenTooLong ? 0 : notation.parseSan(game.getBoard(), tokenText.set(token, start, tokenLength - start));
+        if (move == 0) {
+            game.setError("Illegal or ambiguous move " + new String(token, start, tokenLength - start, StandardCharsets.ISO_8859_1) + " at ply " + (game.getMoveCount() + 1));
+            return;
+        }
+        game.getBoard().makeMove(move);
+        game.addMove(move);
+    }
+
+    /**
+     * Replays every game of a PGN file and reports the throughput
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java PgnReader <file.pgn>");
+            return;
+        }
+        Path path = Paths.get(args[0]);
+        long start = System.nanoTime();
+        PgnReader reader;
+        int[] errorsShown = {0};
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            reader = new PgnReader(channel);
+            reader.read(game -> {
+                if (!game.isValid() && errorsShown[0] < 10) {
+                    errorsShown[0]++;
+                    System.out.println("Game " + game.getNumber() + ": " + game.getError());
+                }
+            });
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Games: %,d (%,d invalid)%n", reader.getGamesRead(), reader.getInvalidGames());
+        System.out.printf("Moves: %,d%n", reader.getMovesRead());
+        System.out.printf("Time: %.3f s, %,.0f games/s, %,.0f moves/s, %.1f MB/s%n",
+                seconds, reader.getGamesRead() / seconds, reader.getMovesRead() / seconds,
+                reader.getBytesRead() / seconds / 1e6);
+    }
+}
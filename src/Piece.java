@@ -1,7 +1,10 @@
 /**
- * Represents a chess piece with its type, color, and position.
+ * Represents a chess piece with its type and color.
+ * Pieces are immutable flyweights: there is exactly one instance per type and
+ * color (obtained with Piece.of), so pieces can be shared between boards and
+ * compared with ==. Where a piece stands is recorded by the board, not the piece.
  */
-public class Piece {
+public final class Piece {
     
     public enum Type {
         KING('K', "♚", "♔"),
@@ -22,40 +25,70 @@ public class Piece {
         }
         
         public char getNotation() { return notation; }
-        public String getSymbol(String color) {
-            return color.equals("white") ? whiteSymbol : blackSymbol;
+        
+        /**
+         * Returns the type with the given notation letter (either case), or null if there is none
+         */
+        public static Type fromNotation(char c) {
+            return c < BY_NOTATION.length ? BY_NOTATION[c] : null;
+        }
+        
+        // Types by notation letter in either case, so parsers look them up without a scan
+        private static final Type[] BY_NOTATION = new Type[128];
+        static {
+            for (Type type : values()) {
+                BY_NOTATION[type.notation] = type;
+                BY_NOTATION[Character.toLowerCase(type.notation)] = type;
+            }
+        }
+        public String getSymbol(Side color) {
+            return color == Side.WHITE ? whiteSymbol : blackSymbol;
+        }
+    }
+    
+    // Indexed by color index * 6 + Type ordinal
+    private static final Piece[] PIECES = new Piece[12];
+    
+    static {
+        for (Side color : Side.values()) {
+            for (Type type : Type.values()) {
+                PIECES[color.index() * 6 + type.ordinal()] = new Piece(type, color);
+            }
         }
     }
     
     private final Type type;
-    private final String color;
-    private int row;
-    private int col;
-    private boolean hasMoved = false;
+    private final Side color;
+    private final int index;
     
-    public Piece(Type type, String color, int row, int col) {
+    private Piece(Type type, Side color) {
         this.type = type;
         this.color = color;
-        this.row = row;
-        this.col = col;
+        this.index = color.index() * 6 + type.ordinal();
     }
     
-    public Type getType() { return type; }
-    public String getColor() { return color; }
-    public int getRow() { return row; }
-    public int getCol() { return col; }
-    public boolean hasMoved() { return hasMoved; }
-    
-    public void setPosition(int row, int col) {
-        this.row = row;
-        this.col = col;
-        this.hasMoved = true;
+    /**
+     * Returns the shared piece of the given type and color
+     */
+    public static Piece of(Type type, Side color) {
+        return PIECES[color.index() * 6 + type.ordinal()];
     }
     
-    public void setHasMoved(boolean moved) {
-        this.hasMoved = moved;
+    /**
+     * Returns the piece with the given index (see getIndex)
+     */
+    public static Piece fromIndex(int index) {
+        return PIECES[index];
     }
     
+    public Type getType() { return type; }
+    public Side getColor() { return color; }
+    
+    /**
+     * Index of the piece from 0 to 11: color index * 6 + type ordinal
+     */
+    public int getIndex() { return index; }
+    
     public String getSymbol() {
         return type.getSymbol(color);
     }
@@ -65,16 +98,14 @@ public class Piece {
     }
     
     /**
-     * Creates a copy of this piece
+     * Letter of the piece in FEN: uppercase for white, lowercase for black
      */
-    public Piece copy() {
-        Piece copy = new Piece(this.type, this.color, this.row, this.col);
-        copy.hasMoved = this.hasMoved;
-        return copy;
+    public char getFenLetter() {
+        return color == Side.WHITE ? type.getNotation() : Character.toLowerCase(type.getNotation());
     }
     
     @Override
     public String toString() {
-        return color + " " + type + " at (" + row + "," + col + ")";
+        return color + " " + type;
     }
 }
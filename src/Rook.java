@@ -1,22 +1,22 @@
 public class Rook extends Board{
     private static final char SYMBOL='R';
     int row=0,column;
-    Rook(String color,int column){
+    Rook(Side color,int column){
         addPiece(column,color,this.row);
     }
     @Override
-    void addPiece(int pos, String color, int row) {
+    void addPiece(int pos, Side color, int row) {
         board[row][pos]=new Index(pos,color,SYMBOL);
         this.column=pos;
         this.row=row;
-        recordMove(color,new Move(Move.Type.ADD,pos,row,SYMBOL));
+        recordMove(color,Move.encode(Move.Type.ADD,pos,row,SYMBOL));
     }
     @Override
-    void movePiece(int pos, String color, int row) {
+    void movePiece(int pos, Side color, int row) {
         if(pos < 0 || pos >= 8 || row < 0 || row >= 8){
             throw new IllegalArgumentException("Position out of bounds for rook move");
         }
-        if(board[row][pos] != null && board[row][pos].colour.equals(color)){
+        if(board[row][pos] != null && board[row][pos].colour == color){
             throw new IllegalArgumentException("Cannot capture your own piece");
         }
         if(column == pos && this.row == row){
@@ -53,16 +53,16 @@ public class Rook extends Board{
         if(moved){
             board[oldRow][oldCol] = null;
             board[this.row][this.column] = new Index(this.column, color, SYMBOL);
-            recordMove(color, new Move(Move.Type.MOVE, this.column, this.row, SYMBOL));
+            recordMove(color, Move.encode(Move.Type.MOVE, this.column, this.row, SYMBOL));
         } else {
             throw new IllegalArgumentException("Rook must move in a straight line");
         }
     }
     @Override
-    void removePiece(int pos, String color, int row) {
+    void removePiece(int pos, Side color, int row) {
         if(board[row][pos]!=null){
             board[row][pos]=null;
-            recordMove(color,new Move(Move.Type.REMOVE,pos,row,SYMBOL));
+            recordMove(color,Move.encode(Move.Type.REMOVE,pos,row,SYMBOL));
         }
     }
 }
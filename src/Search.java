@@ -0,0 +1,382 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Chess engine search over GameBoard positions.
+ * Runs iterative-deepening principal variation search (alpha-beta where every
+ * move after the first is tried with a null window first), followed by a
+ * quiescence search of captures at the leaves, and returns the best move,
+ * score, principal variation and node counts.
+ *
+ * The search plays moves on the board it is given with makeMove/unmakeMove
+ * and leaves it in its original position. Move buffers and PV tables are
+ * allocated once per Search, so a Search can be reused for many positions.
+ *
+ * Usage:
+ *   java Search [--depth n] [--time ms] [--nodes n] [--hash mb] [fen]
+ */
+public class Search {
+
+    public static final int MAX_PLY = 128;
+    public static final int INFINITY = 32000;
+    public static final int MATE = 31000;
+    public static final int MATE_BOUND = MATE - MAX_PLY;
+
+    // The clock is read once every this many nodes (plus one)
+    private static final long TIME_CHECK_MASK = 2047;
+
+    private final TranspositionTable table;
+    private final MoveOrdering ordering = new MoveOrdering();
+    private final MoveList[] moveLists = new MoveList[MAX_PLY + 1];
+    private final int[][] pvTable = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+
+    private GameBoard board;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private volatile boolean stopRequested;
+    private boolean aborted;
+    private Consumer<SearchResult> listener;
+
+    // Set when this Search is one worker of a ParallelSearch, which then
+    // starts each search of the shared table (see TranspositionTable.newSearch)
+    private AtomicBoolean sharedStop;
+    private int helperIndex;
+
+    public Search(TranspositionTable table) {
+        this.table = table;
+        for (int i = 0; i <= MAX_PLY; i++) {
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    /**
+     * Sets a callback that receives the result of every completed iteration
+     */
+    public void setListener(Consumer<SearchResult> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Asks a running search to stop as soon as possible. Safe to call from another thread.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Nodes searched so far by the current or last search.
+     * May be read from another thread while searching; the value is then approximate.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Move ordering state of this search, including the cutoff statistics of the last search
+     */
+    public MoveOrdering getMoveOrdering() {
+        return ordering;
+    }
+
+    /**
+     * Makes the search also stop when the given flag is set, so a group of
+     * workers can be stopped together
+     */
+    public void setSharedStop(AtomicBoolean sharedStop) {
+        this.sharedStop = sharedStop;
+    }
+
+    /**
+     * Sets this worker's index among parallel searchers. Index 0 searches
+     * normally; helpers skip the first iteration on odd indexes and try
+     * the root moves in a rotated order, so workers spread over the tree.
+     */
+    public void setHelperIndex(int helperIndex) {
+        this.helperIndex = helperIndex;
+    }
+
+    /**
+     * Searches the position until one of the limits is reached or stop is called.
+     * Returns the result of the deepest completed iteration.
+     */
+    public SearchResult search(GameBoard board, SearchLimits limits) {
+        this.board = board;
+        long start = System.nanoTime();
+        nodes = 0;
+        nodeLimit = limits.getNodes();
+        deadline = limits.getDeadlineNanos(start);
+        stopRequested = false;
+        aborted = false;
+        // A ParallelSearch ages the shared table once for all of its workers
+        if (sharedStop == null) {
+            table.newSearch();
+        }
+        ordering.newSearch();
+        ordering.resetStats();
+
+        // Positions without legal moves need no search
+        MoveList rootMoves = moveLists[0];
+        if (board.generateLegalMoves(board.getCurrentTurn(), rootMoves) == 0) {
+            int score = board.isInCheck(board.getCurrentTurn()) ? -MATE : 0;
+            return new SearchResult(0, score, 0, new int[0], 0, 0);
+        }
+        int fallbackMove = rootMoves.get(0);
+
+        SearchResult result = null;
+        int firstDepth = Math.min(1 + (helperIndex & 1), limits.getDepth());
+        for (int depth = firstDepth; depth <= limits.getDepth(); depth++) {
+            int score = pvs(depth, -INFINITY, INFINITY, 0);
+            if (aborted) {
+                // An unfinished iteration only counts if nothing better is known
+                if (result == null && pvLength[0] > 0) {
+                    fallbackMove = pvTable[0][0];
+                }
+                break;
+            }
+
+            long elapsed = (System.nanoTime() - start) / 1_000_000L;
+            int[] pv = Arrays.copyOf(pvTable[0], pvLength[0]);
+            result = new SearchResult(pv[0], score, depth, pv, nodes, elapsed);
+            if (listener != null) {
+                listener.accept(result);
+            }
+        }
+
+        if (result == null) {
+            long elapsed = (System.nanoTime() - start) / 1_000_000L;
+            result = new SearchResult(fallbackMove, 0, 0, new int[]{fallbackMove}, nodes, elapsed);
+        }
+        return result;
+    }
+
+    private int pvs(int depth, int alpha, int beta, int ply) {
+        if (depth <= 0) return quiescence(alpha, beta, ply);
+        pvLength[ply] = ply;
+        if (countNode()) return 0;
+
+        Side turn = board.getCurrentTurn();
+        boolean inCheck = board.isInCheck(turn);
+        if (inCheck) depth++;
+        if (ply >= MAX_PLY) return board.evaluate();
+
+        boolean rootNode = ply == 0;
+        boolean pvNode = beta - alpha > 1;
+        if (!rootNode && (board.getHalfmoveClock() >= 100 || board.isRepetition() || board.hasInsufficientMaterial())) return 0;
+
+        // Transposition table: reuse earlier results and try the stored best move first
+        long key = board.getZobristKey();
+        long entry = table.probe(key);
+        int ttMove = 0;
+        if (entry != 0) {
+            ttMove = TranspositionTable.move(entry);
+            if (!pvNode && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                        || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        MoveList moves = moveLists[ply];
+        int count = board.generateLegalMoves(turn, moves);
+        if (count == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        ordering.score(board, moves, ply, ttMove);
+        if (rootNode) {
+            // Root moves are few: sort them all so helpers can rotate the order
+            ordering.sort(moves, ply);
+            if (helperIndex > 0 && count > 2) {
+                rotate(moves, 1, count, helperIndex % (count - 1));
+            }
+        }
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = 0;
+        for (int i = 0; i < count; i++) {
+            int move = rootNode ? moves.get(i) : ordering.next(moves, ply, i);
+            board.makeMove(move);
+            int score;
+            if (i == 0) {
+                score = -pvs(depth - 1, -beta, -alpha, ply + 1);
+            } else {
+                score = -pvs(depth - 1, -alpha - 1, -alpha, ply + 1);
+                if (score > alpha && score < beta) {
+                    score = -pvs(depth - 1, -beta, -alpha, ply + 1);
+                }
+            }
+            board.unmakeMove();
+            if (aborted) return 0;
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        ordering.recordCutoff(board, move, ply, depth, i);
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = bestScore >= beta ? TranspositionTable.LOWER_BOUND
+                  : bestScore > originalAlpha ? TranspositionTable.EXACT
+                  : TranspositionTable.UPPER_BOUND;
+        table.store(key, bestMove, toTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    /**
+     * Searches captures and promotions only, until the position is quiet, so the
+     * static evaluation is never taken in the middle of an exchange. The side to
+     * move may "stand pat" on the static evaluation instead of capturing; captures
+     * that static exchange evaluation says lose material are skipped. In check,
+     * all evasions are searched since standing pat is not an option.
+     */
+    private int quiescence(int alpha, int beta, int ply) {
+        pvLength[ply] = ply;
+        if (countNode()) return 0;
+        if (ply >= MAX_PLY) return board.evaluate();
+
+        Side turn = board.getCurrentTurn();
+        boolean inCheck = board.isInCheck(turn);
+        MoveList moves = moveLists[ply];
+        int bestScore;
+        int count;
+        if (inCheck) {
+            count = board.generateLegalMoves(turn, moves);
+            if (count == 0) return -MATE + ply;
+            bestScore = -INFINITY;
+        } else {
+            bestScore = board.evaluate();
+            if (bestScore >= beta) return bestScore;
+            if (bestScore > alpha) alpha = bestScore;
+            count = board.generateLegalCaptures(turn, moves);
+        }
+        ordering.score(board, moves, ply, 0);
+
+        for (int i = 0; i < count; i++) {
+            int move = ordering.next(moves, ply, i);
+            // Losing captures are sorted last, so none of the remaining ones is worth trying
+            if (!inCheck && ordering.isLosingCapture(ply, i)) break;
+
+            board.makeMove(move);
+            int score = -quiescence(-beta, -alpha, ply + 1);
+            board.unmakeMove();
+            if (aborted) return 0;
+
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        ordering.recordCutoff(board, move, ply, 0, i);
+                        break;
+                    }
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    /**
+     * Counts a node and checks the limits. Returns true once the search has to stop.
+     */
+    private boolean countNode() {
+        nodes++;
+        if (nodes >= nodeLimit || stopRequested
+                || ((nodes & TIME_CHECK_MASK) == 0
+                    && (System.nanoTime() >= deadline || (sharedStop != null && sharedStop.get())))) {
+            aborted = true;
+        }
+        return aborted;
+    }
+
+    /**
+     * Rotates moves[from, to) left by the given distance
+     */
+    private static void rotate(MoveList moves, int from, int to, int distance) {
+        for (int d = 0; d < distance; d++) {
+            for (int i = from; i < to - 1; i++) {
+                moves.swap(i, i + 1);
+            }
+        }
+    }
+
+    private void updatePv(int ply, int move) {
+        int[] line = pvTable[ply];
+        int[] child = pvTable[ply + 1];
+        line[ply] = move;
+        int length = pvLength[ply + 1];
+        for (int i = ply + 1; i < length; i++) {
+            line[i] = child[i];
+        }
+        pvLength[ply] = Math.max(length, ply + 1);
+    }
+
+    // Mate scores are stored relative to the node so they stay valid at any ply
+    private static int toTable(int score, int ply) {
+        if (score >= MATE_BOUND) return score + ply;
+        if (score <= -MATE_BOUND) return score - ply;
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE_BOUND) return score - ply;
+        if (score <= -MATE_BOUND) return score + ply;
+        return score;
+    }
+
+    public static void main(String[] args) {
+        SearchLimits limits = new SearchLimits();
+        boolean limited = false;
+        int hashMegabytes = 64;
+        StringBuilder fen = new StringBuilder();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--depth":
+                    limits.setDepth(Integer.parseInt(args[++i]));
+                    limited = true;
+                    break;
+                case "--time":
+                    limits.setTimeMillis(Long.parseLong(args[++i]));
+                    limited = true;
+                    break;
+                case "--nodes":
+                    limits.setNodes(Long.parseLong(args[++i]));
+                    limited = true;
+                    break;
+                case "--hash":
+                    hashMegabytes = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    fen.append(args[i]).append(' ');
+                    break;
+            }
+        }
+        if (!limited) {
+            limits.setDepth(6);
+        }
+
+        GameBoard board = fen.length() > 0 ? new GameBoard(fen.toString()) : new GameBoard();
+        Search search = new Search(new TranspositionTable(hashMegabytes));
+        search.setListener(result -> System.out.println(result));
+        SearchResult result = search.search(board, limits);
+        MoveOrdering ordering = search.getMoveOrdering();
+        System.out.printf("cutoffs %d first move %.1f%% average index %.2f%n", ordering.getCutoffs(),
+                          ordering.getFirstMoveCutoffRate() * 100, ordering.getAverageCutoffIndex());
+        System.out.println("bestmove " + (result.getBestMove() != 0 ? MoveList.toString(result.getBestMove()) : "(none)"));
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * Limits for a Search run. Any combination of depth, node and time limits
+ * can be set; the search stops at whichever is reached first. With no
+ * limits set the search runs until it is stopped.
+ */
+public class SearchLimits {
+
+    private int depth = Search.MAX_PLY - 1;
+    private long nodes = Long.MAX_VALUE;
+    private long timeMillis = Long.MAX_VALUE;
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits().setDepth(depth);
+    }
+
+    public static SearchLimits time(long millis) {
+        return new SearchLimits().setTimeMillis(millis);
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits().setNodes(nodes);
+    }
+
+    public SearchLimits setDepth(int depth) {
+        this.depth = Math.max(1, Math.min(depth, Search.MAX_PLY - 1));
+        return this;
+    }
+
+    public SearchLimits setNodes(long nodes) {
+        this.nodes = nodes;
+        return this;
+    }
+
+    public SearchLimits setTimeMillis(long millis) {
+        this.timeMillis = millis;
+        return this;
+    }
+
+    public int getDepth() { return depth; }
+    public long getNodes() { return nodes; }
+    public long getTimeMillis() { return timeMillis; }
+
+    /**
+     * The time limit as a System.nanoTime() deadline for a search started at
+     * startNanos. Limits too large to express in nanoseconds give Long.MAX_VALUE,
+     * the same as no limit, rather than overflowing into the past.
+     */
+    public long getDeadlineNanos(long startNanos) {
+        long millis = Math.max(0, timeMillis);
+        if (millis >= Long.MAX_VALUE / 1_000_000L) return Long.MAX_VALUE;
+        long deadline = startNanos + millis * 1_000_000L;
+        return deadline < startNanos ? Long.MAX_VALUE : deadline;
+    }
+}
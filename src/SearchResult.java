@@ -0,0 +1,65 @@
+/**
+ * Outcome of a Search iteration: best move, score, principal variation and node counts.
+ * Scores are in centipawns from the side to move's point of view; mate scores
+ * are reported through isMate/getMateIn.
+ */
+public class SearchResult {
+
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final int[] principalVariation;
+    private final long nodes;
+    private final long timeMillis;
+
+    public SearchResult(int bestMove, int score, int depth, int[] principalVariation, long nodes, long timeMillis) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.principalVariation = principalVariation;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+    }
+
+    /**
+     * Returns the best move in MoveList encoding, or 0 if the position has no legal moves
+     */
+    public int getBestMove() { return bestMove; }
+    public int getScore() { return score; }
+    public int getDepth() { return depth; }
+    public int[] getPrincipalVariation() { return principalVariation.clone(); }
+    public long getNodes() { return nodes; }
+    public long getTimeMillis() { return timeMillis; }
+
+    public long getNodesPerSecond() {
+        return timeMillis > 0 ? nodes * 1000 / timeMillis : nodes * 1000;
+    }
+
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE_BOUND;
+    }
+
+    /**
+     * Moves (not plies) to mate; negative if the side to move is being mated
+     */
+    public int getMateIn() {
+        int plies = Search.MATE - Math.abs(score);
+        int moves = (plies + 1) / 2;
+        return score > 0 ? moves : -moves;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("depth ").append(depth);
+        sb.append(isMate() ? " mate " + getMateIn() : " score " + score);
+        sb.append(" nodes ").append(nodes);
+        sb.append(" time ").append(timeMillis);
+        sb.append(" nps ").append(getNodesPerSecond());
+        sb.append(" pv");
+        for (int move : principalVariation) {
+            sb.append(' ').append(MoveList.toString(move));
+        }
+        return sb.toString();
+    }
+}
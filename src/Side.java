@@ -0,0 +1,54 @@
+/**
+ * The two sides of a chess game.
+ * The ordinal doubles as the side index used by the bitboards, Zobrist keys
+ * and evaluation tables (BitboardPosition.WHITE and BitboardPosition.BLACK),
+ * so comparing or indexing by side never touches a String. The lowercase name
+ * ("white"/"black") is only meant for display.
+ */
+public enum Side {
+    WHITE("white"),
+    BLACK("black");
+
+    private static final Side[] SIDES = values();
+
+    private final String displayName;
+
+    Side(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * Index of the side: 0 for white, 1 for black
+     */
+    public int index() {
+        return ordinal();
+    }
+
+    public Side opposite() {
+        return SIDES[ordinal() ^ 1];
+    }
+
+    public static Side fromIndex(int index) {
+        return SIDES[index];
+    }
+
+    /**
+     * Parses a display name, ignoring case
+     */
+    public static Side fromName(String name) {
+        for (Side side : SIDES) {
+            if (side.displayName.equalsIgnoreCase(name.trim())) {
+                return side;
+            }
+        }
+        throw new IllegalArgumentException("Unknown side: " + name);
+    }
+
+    /**
+     * Lowercase display name, "white" or "black"
+     */
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,242 @@
+import java.util.Arrays;
+
+/**
+ * Fixed-size hash table of search results keyed by GameBoard's Zobrist key.
+ * Entries live in two preallocated long arrays (full key and packed data),
+ * so the table never allocates after construction and its memory use is
+ * known up front: 16 bytes per entry, two entries per bucket.
+ *
+ * The table can be shared by several search threads without locks. Each
+ * slot stores key XOR data next to the data, so an entry torn by two
+ * threads writing at once no longer matches its key and is ignored.
+ * The statistics counters are not synchronized and are approximate when
+ * several threads use the table.
+ *
+ * Packed data layout:
+ *   bits 0-15  best move (MoveList encoding, 0 if none)
+ *   bits 16-31 score (signed)
+ *   bits 32-39 depth (signed)
+ *   bits 40-41 bound type (0 means the slot is empty)
+ *   bits 42-49 search age
+ */
+public class TranspositionTable {
+
+    public enum ReplacementPolicy {
+        /** Slot 0 keeps the deepest result of the current search, slot 1 takes everything else */
+        DEPTH_PREFERRED,
+        /** New results always go to slot 0; its previous content moves to slot 1 */
+        ALWAYS_REPLACE
+    }
+
+    // Bound types
+    public static final int UPPER_BOUND = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int EXACT = 3;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int SLOTS_PER_BUCKET = 2;
+
+    private final ReplacementPolicy policy;
+    private long[] keys;
+    private long[] data;
+    private int bucketMask;
+    private int age;
+
+    // Statistics
+    private long hits;
+    private long misses;
+    private long stores;
+    private long collisions;
+
+    public TranspositionTable(int megabytes) {
+        this(megabytes, ReplacementPolicy.DEPTH_PREFERRED);
+    }
+
+    public TranspositionTable(int megabytes, ReplacementPolicy policy) {
+        this.policy = policy;
+        resize(megabytes);
+    }
+
+    /**
+     * Reallocates the table to use at most the given number of megabytes.
+     * The bucket count is rounded down to a power of two. All entries are lost.
+     */
+    public void resize(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Table size must be at least 1 MB");
+        }
+        long entries = (long) megabytes * 1024 * 1024 / ENTRY_BYTES;
+        long buckets = Long.highestOneBit(Math.min(entries / SLOTS_PER_BUCKET, 1L << 29));
+        bucketMask = (int) buckets - 1;
+        keys = new long[(int) buckets * SLOTS_PER_BUCKET];
+        data = new long[(int) buckets * SLOTS_PER_BUCKET];
+        age = 0;
+        resetStats();
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+        age = 0;
+    }
+
+    /**
+     * Marks the start of a new search, so entries from older searches get replaced first.
+     * Call it once per search, before any thread searching with the table starts.
+     */
+    public void newSearch() {
+        age = (age + 1) & 0xFF;
+    }
+
+    /**
+     * Looks up a position. Returns the packed entry data, or 0 if the position is not stored.
+     */
+    public long probe(long key) {
+        int index = (int) key & bucketMask;
+        int slot = index * SLOTS_PER_BUCKET;
+        for (int i = 0; i < SLOTS_PER_BUCKET; i++) {
+            long entry = data[slot + i];
+            if ((keys[slot + i] ^ entry) == key && entry != 0) {
+                hits++;
+                return entry;
+            }
+        }
+        misses++;
+        return 0L;
+    }
+
+    /**
+     * Stores a search result for a position according to the replacement policy
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = (int) key & bucketMask;
+        int slot = index * SLOTS_PER_BUCKET;
+
+        // Keep the existing best move if this result has none
+        int target = -1;
+        for (int i = 0; i < SLOTS_PER_BUCKET; i++) {
+            long existing = data[slot + i];
+            if ((keys[slot + i] ^ existing) == key && existing != 0) {
+                target = slot + i;
+                if (move == 0) move = move(existing);
+                break;
+            }
+        }
+
+        long entry = pack(move, score, depth, bound, age);
+        stores++;
+
+        if (target < 0) {
+            long first = data[slot];
+            boolean replaceFirst = policy == ReplacementPolicy.ALWAYS_REPLACE
+                || first == 0
+                || age(first) != age
+                || depth >= depth(first);
+            if (replaceFirst) {
+                // The old first entry is demoted into the second slot
+                if (first != 0) {
+                    if (data[slot + 1] != 0) collisions++;
+                    keys[slot + 1] = keys[slot];
+                    data[slot + 1] = first;
+                }
+                target = slot;
+            } else {
+                if (data[slot + 1] != 0) collisions++;
+                target = slot + 1;
+            }
+        } else {
+            long existing = data[target];
+            if (policy == ReplacementPolicy.DEPTH_PREFERRED && target == slot
+                    && depth < depth(existing) && age(existing) == age && bound != EXACT) {
+                // Don't overwrite a deeper result of this search with a shallower bound
+                return;
+            }
+        }
+
+        keys[target] = key ^ entry;
+        data[target] = entry;
+    }
+
+    // -------- Entry decoding --------
+
+    private static long pack(int move, int score, int depth, int bound, int age) {
+        return (move & 0xFFFFL)
+             | ((score & 0xFFFFL) << 16)
+             | ((depth & 0xFFL) << 32)
+             | ((long) bound << 40)
+             | ((long) age << 42);
+    }
+
+    public static int move(long entry) {
+        return (int) (entry & 0xFFFF);
+    }
+
+    public static int score(long entry) {
+        return (short) (entry >>> 16);
+    }
+
+    public static int depth(long entry) {
+        return (byte) (entry >>> 32);
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> 40) & 0x3;
+    }
+
+    private static int age(long entry) {
+        return (int) (entry >>> 42) & 0xFF;
+    }
+
+    // -------- Statistics --------
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getStores() {
+        return stores;
+    }
+
+    /**
+     * Number of stores that evicted an entry belonging to a different position
+     */
+    public long getCollisions() {
+        return collisions;
+    }
+
+    public double getHitRate() {
+        long probes = hits + misses;
+        return probes == 0 ? 0.0 : (double) hits / probes;
+    }
+
+    public void resetStats() {
+        hits = 0;
+        misses = 0;
+        stores = 0;
+        collisions = 0;
+    }
+
+    public int getEntryCount() {
+        return keys.length;
+    }
+
+    public long getSizeBytes() {
+        return (long) keys.length * ENTRY_BYTES;
+    }
+
+    /**
+     * Permille of sampled slots filled by the current search, as reported by UCI "hashfull"
+     */
+    public int getHashFull() {
+        int sample = Math.min(1000, data.length);
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            if (data[i] != 0 && age(data[i]) == age) used++;
+        }
+        return used * 1000 / sample;
+    }
+}
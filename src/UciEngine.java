@@ -0,0 +1,343 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Headless front end speaking the UCI (Universal Chess Interface) protocol on
+ * stdin/stdout, so the engine can run under tournament managers and GUIs.
+ *
+ * The calling thread only reads and handles commands; every search runs on a
+ * separate search thread. A "stop" (or "quit") therefore reaches a running
+ * search right away and the best move follows within one node check.
+ *
+ * Supported commands: uci, isready, setoption (Hash, Threads), ucinewgame,
+ * position (startpos/fen, moves), go (depth, nodes, movetime, wtime/btime,
+ * winc/binc, movestogo, infinite), stop, quit, and "d" to print the position.
+ *
+ * Usage:
+ *   java UciEngine
+ */
+public class UciEngine {
+
+    public static final int DEFAULT_HASH_MB = 64;
+    public static final int MAX_HASH_MB = 4096;
+    public static final int MAX_THREADS = 256;
+
+    // Kept back from the clock for the GUI and the communication delay
+    private static final long TIME_MARGIN_MS = 50;
+
+    private final BufferedReader in;
+    private final PrintStream out;
+
+    private final GameBoard board = new GameBoard();
+    private final Notation notation = new Notation();
+    private final TranspositionTable table = new TranspositionTable(DEFAULT_HASH_MB);
+    private final ParallelSearch search = new ParallelSearch(table, 1);
+    private final ExecutorService searchThread = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "uci-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<?> runningSearch;
+
+    // With "go infinite" the best move may only be sent after "stop"
+    private final Object stopLock = new Object();
+    private boolean stopRequested;
+
+    public UciEngine(BufferedReader in, PrintStream out) {
+        this.in = in;
+        this.out = out;
+        search.setListener(this::sendInfo);
+    }
+
+    /**
+     * Reads and handles commands until "quit" or the end of the input
+     */
+    public void run() throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!handle(line.trim())) break;
+        }
+        stopSearch();
+        search.shutdown();
+        searchThread.shutdownNow();
+    }
+
+    /**
+     * Handles one command line. Returns false on "quit".
+     */
+    private boolean handle(String line) {
+        if (line.isEmpty()) return true;
+        String[] words = line.split("\\s+");
+        switch (words[0]) {
+            case "uci":
+                send("id name Chess");
+                send("id author Chess contributors");
+                send("option name Hash type spin default " + DEFAULT_HASH_MB + " min 1 max " + MAX_HASH_MB);
+                send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                send("uciok");
+                break;
+            case "isready":
+                send("readyok");
+                break;
+            case "setoption":
+                setOption(words);
+                break;
+            case "ucinewgame":
+                stopSearch();
+                table.clear();
+                search.newGame();
+                board.setPosition(GameBoard.START_FEN);
+                break;
+            case "position":
+                stopSearch();
+                setPosition(words);
+                break;
+            case "go":
+                stopSearch();
+                go(words);
+                break;
+            case "stop":
+                stopSearch();
+                break;
+            case "quit":
+                return false;
+            case "d":
+                send(board.toFen());
+                break;
+            default:
+                send("info string unknown command: " + words[0]);
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * setoption name <id> value <x>
+     */
+    private void setOption(String[] words) {
+        StringBuilder name = new StringBuilder();
+        String value = null;
+        int i = 1;
+        if (i < words.length && words[i].equals("name")) i++;
+        for (; i < words.length && !words[i].equals("value"); i++) {
+            if (name.length() > 0) name.append(' ');
+            name.append(words[i]);
+        }
+        if (i + 1 < words.length) value = words[i + 1];
+
+        stopSearch();
+        try {
+            if (name.toString().equalsIgnoreCase("Hash") && value != null) {
+                table.resize(Math.max(1, Math.min(MAX_HASH_MB, Integer.parseInt(value))));
+            } else if (name.toString().equalsIgnoreCase("Threads") && value != null) {
+                search.setThreads(Math.max(1, Math.min(MAX_THREADS, Integer.parseInt(value))));
+            } else {
+                send("info string unknown option: " + name);
+            }
+        } catch (NumberFormatException e) {
+            send("info string invalid value for " + name + ": " + value);
+        }
+    }
+
+    /**
+     * position [startpos | fen <fen>] [moves <move1> ... <movei>]
+     */
+    private void setPosition(String[] words) {
+        int i = 1;
+        int movesAt = words.length;
+        for (int j = 1; j < words.length; j++) {
+            if (words[j].equals("moves")) {
+                movesAt = j;
+                break;
+            }
+        }
+        try {
+            if (i < words.length && words[i].equals("fen")) {
+                StringBuilder fen = new StringBuilder();
+                for (int j = i + 1; j < movesAt; j++) {
+                    fen.append(words[j]).append(' ');
+                }
+                board.setPosition(fen);
+            } else {
+                board.setPosition(GameBoard.START_FEN);
+            }
+        } catch (IllegalArgumentException e) {
+            send("info string " + e.getMessage());
+            return;
+        }
+        for (int j = movesAt + 1; j < words.length; j++) {
+            int move = notation.parseUci(board, words[j]);
+            if (move == 0) {
+                send("info string illegal move: " + words[j]);
+                return;
+            }
+            board.makeMove(move);
+        }
+    }
+
+    /**
+     * go [depth n] [nodes n] [movetime ms] [wtime ms] [btime ms] [winc ms] [binc ms]
+     *    [movestogo n] [infinite]
+     */
+    private void go(String[] words) {
+        SearchLimits limits = new SearchLimits();
+        long time = -1, increment = 0, moveTime = -1;
+        int movesToGo = 0;
+        boolean infinite = false;
+        boolean white = board.getCurrentTurn() == Side.WHITE;
+        try {
+            for (int i = 1; i < words.length; i++) {
+                String word = words[i];
+                boolean hasValue = i + 1 < words.length;
+                switch (word) {
+                    case "depth":
+                        if (hasValue) limits.setDepth(Integer.parseInt(words[++i]));
+                        break;
+                    case "nodes":
+                        if (hasValue) limits.setNodes(Long.parseLong(words[++i]));
+                        break;
+                    case "movetime":
+                        if (hasValue) moveTime = Long.parseLong(words[++i]);
+                        break;
+                    case "wtime":
+                    case "btime":
+                        if (hasValue) {
+                            long value = Long.parseLong(words[++i]);
+                            if (word.equals("wtime") == white) time = value;
+                        }
+                        break;
+                    case "winc":
+                    case "binc":
+                        if (hasValue) {
+                            long value = Long.parseLong(words[++i]);
+                            if (word.equals("winc") == white) increment = value;
+                        }
+                        break;
+                    case "movestogo":
+                        if (hasValue) movesToGo = Integer.parseInt(words[++i]);
+                        break;
+                    case "infinite":
+                        infinite = true;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } catch (NumberFormatException e) {
+            send("info string invalid go command: " + e.getMessage());
+            return;
+        }
+
+        if (moveTime >= 0) {
+            limits.setTimeMillis(Math.max(1, moveTime - TIME_MARGIN_MS));
+        } else if (time >= 0 && !infinite) {
+            limits.setTimeMillis(timeForMove(time, increment, movesToGo));
+        }
+
+        boolean waitForStop = infinite;
+        synchronized (stopLock) {
+            stopRequested = false;
+        }
+        GameBoard position = board.copy();
+        runningSearch = searchThread.submit(() -> {
+            SearchResult result = search.search(position, limits);
+            if (waitForStop) {
+                awaitStop();
+            }
+            send("bestmove " + Notation.toUci(result.getBestMove()));
+        });
+    }
+
+    /**
+     * Share of the remaining clock to spend on this move
+     */
+    static long timeForMove(long remaining, long increment, int movesToGo) {
+        long moves = movesToGo > 0 ? Math.min(movesToGo, 40) : 30;
+        long budget = remaining / moves + increment * 3 / 4;
+        long limit = remaining - Math.min(TIME_MARGIN_MS, remaining / 2);
+        return Math.max(1, Math.min(budget, limit));
+    }
+
+    /**
+     * Stops a running search and waits until its best move has been sent.
+     * The stop is repeated while waiting, since a search that had not started
+     * yet clears the stop signal when it does.
+     */
+    private void stopSearch() {
+        if (runningSearch == null) return;
+        synchronized (stopLock) {
+            stopRequested = true;
+            stopLock.notifyAll();
+        }
+        try {
+            while (true) {
+                search.stop();
+                try {
+                    runningSearch.get(10, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    // Not finished yet: signal again
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            send("info string search failed: " + e.getCause());
+        }
+        runningSearch = null;
+    }
+
+    private void awaitStop() {
+        synchronized (stopLock) {
+            while (!stopRequested) {
+                try {
+                    stopLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void sendInfo(SearchResult result) {
+        StringBuilder info = new StringBuilder("info depth ").append(result.getDepth());
+        if (result.isMate()) {
+            info.append(" score mate ").append(result.getMateIn());
+        } else {
+            info.append(" score cp ").append(result.getScore());
+        }
+        info.append(" nodes ").append(result.getNodes())
+            .append(" nps ").append(result.getNodesPerSecond())
+            .append(" time ").append(result.getTimeMillis())
+            .append(" hashfull ").append(table.getHashFull())
+            .append(" pv");
+        for (int move : result.getPrincipalVariation()) {
+            info.append(' ');
+            Notation.appendUci(move, info);
+        }
+        send(info.toString());
+    }
+
+    private void send(String line) {
+        synchronized (out) {
+            out.println(line);
+            out.flush();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        PrintStream out = new PrintStream(System.out, false, "UTF-8");
+        new UciEngine(in, out).run();
+    }
+}
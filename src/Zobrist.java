@@ -0,0 +1,81 @@
+/**
+ * Random keys for Zobrist hashing of GameBoard positions.
+ * A position's key is the XOR of the keys of every piece on its square, the
+ * side to move, the castling rights and the en passant file, so a move only
+ * has to XOR in and out the few keys it changes.
+ *
+ * Keys are generated from a fixed seed, so they are the same on every run.
+ */
+public final class Zobrist {
+
+    private static final int PIECE_TYPES = Piece.Type.values().length;
+
+    // Indexed by [color * 6 + Piece.Type ordinal][square]
+    private static final long[][] PIECE_SQUARE = new long[2 * PIECE_TYPES][64];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT_FILE = new long[8];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        long seed = 0x9E3779B97F4A7C15L;
+        for (long[] squares : PIECE_SQUARE) {
+            for (int sq = 0; sq < 64; sq++) {
+                seed = nextSeed(seed);
+                squares[sq] = mix(seed);
+            }
+        }
+        // Each castling right gets its own key; a set of rights is the XOR of its members
+        long[] rightKeys = new long[4];
+        for (int i = 0; i < 4; i++) {
+            seed = nextSeed(seed);
+            rightKeys[i] = mix(seed);
+        }
+        for (int rights = 0; rights < 16; rights++) {
+            for (int i = 0; i < 4; i++) {
+                if ((rights & (1 << i)) != 0) CASTLING[rights] ^= rightKeys[i];
+            }
+        }
+        for (int col = 0; col < 8; col++) {
+            seed = nextSeed(seed);
+            EN_PASSANT_FILE[col] = mix(seed);
+        }
+        seed = nextSeed(seed);
+        BLACK_TO_MOVE = mix(seed);
+    }
+
+    private Zobrist() {
+    }
+
+    public static long piece(int color, Piece.Type type, int square) {
+        return PIECE_SQUARE[color * PIECE_TYPES + type.ordinal()][square];
+    }
+
+    /**
+     * Key for a combination of GameBoard castling right flags
+     */
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    public static long enPassant(int col) {
+        return EN_PASSANT_FILE[col];
+    }
+
+    /**
+     * Key toggled whenever the side to move changes
+     */
+    public static long sideToMove() {
+        return BLACK_TO_MOVE;
+    }
+
+    // SplitMix64 generator
+    private static long nextSeed(long seed) {
+        return seed + 0x9E3779B97F4A7C15L;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}